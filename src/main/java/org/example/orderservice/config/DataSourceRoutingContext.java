@@ -0,0 +1,31 @@
+package org.example.orderservice.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override for {@link ReplicaRoutingDataSource}. Code running inside
+ * {@link #onPrimary} always gets a primary connection, even in a read-only transaction.
+ */
+public final class DataSourceRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private DataSourceRoutingContext() {
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get();
+    }
+
+    public static <T> T onPrimary(boolean forcePrimary, Supplier<T> action) {
+        if (!forcePrimary || isPrimaryForced()) {
+            return action.get();
+        }
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_FORCED.remove();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.orderservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica pool and everything else to the
+ * primary. Must be wrapped in a LazyConnectionDataSourceProxy so the lookup happens on the first
+ * statement, after the transaction's read-only flag is known.
+ */
+public final class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.primaryCounter = routeCounter(meterRegistry, "primary");
+        this.replicaCounter = routeCounter(meterRegistry, "replica");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !DataSourceRoutingContext.isPrimaryForced()) {
+            replicaCounter.increment();
+            return Route.REPLICA;
+        }
+        primaryCounter.increment();
+        return Route.PRIMARY;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder("order.datasource.routed.connections")
+                .description("Connections handed out by the read/write routing data source")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
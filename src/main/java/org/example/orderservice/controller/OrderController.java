@@ -1,16 +1,30 @@
 package org.example.orderservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.example.orderservice.dao.OrderDetails;
 import org.example.orderservice.dao.OrderRequest;
 import org.example.orderservice.dao.OrderResponse;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.OrderSummaryDetails;
+import org.example.orderservice.dao.OrderVersion;
+import org.example.orderservice.service.OrderProcessingWorker;
 import org.example.orderservice.service.OrderService;
+import org.example.orderservice.service.OrderSummaryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 @RestController
 @RequestMapping("/api/order")
@@ -18,11 +32,50 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderProcessingWorker orderProcessingWorker;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Value("${order.async.enabled:false}")
+    private boolean asyncEnabled;
+
+    @Value("${order.async.max-wait-ms:30000}")
+    private long maxWaitMs;
+
     @PostMapping
     public ResponseEntity<OrderResponse> placeOrder(@Valid @RequestBody OrderRequest orders) {
+        if (asyncEnabled) {
+            return orderService.acceptOrder(orders);
+        }
         return orderService.createOrder(orders);
     }
 
+    @GetMapping("/{orderId}/status")
+    public DeferredResult<ResponseEntity<String>> getOrderStatus(@PathVariable long orderId,
+                                                                 @RequestParam(defaultValue = "0") long waitMs) {
+        Optional<OrderStatus> status = orderService.getOrderStatus(orderId);
+        if (status.isEmpty()) {
+            return completed(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        if (status.get() != OrderStatus.PENDING || waitMs <= 0) {
+            return completed(new ResponseEntity<>(status.get().name(), HttpStatus.OK));
+        }
+        DeferredResult<ResponseEntity<String>> response = new DeferredResult<>(Math.min(waitMs, maxWaitMs),
+                new ResponseEntity<>(OrderStatus.PENDING.name(), HttpStatus.OK));
+        Runnable unsubscribe = orderProcessingWorker.onStatusChange(orderId,
+                changed -> response.setResult(changed
+                        .map(current -> new ResponseEntity<>(current.name(), HttpStatus.OK))
+                        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND))));
+        response.onCompletion(unsubscribe);
+        // The order may have been processed between the first read and registering the listener
+        orderService.getOrderStatus(orderId)
+                .filter(current -> current != OrderStatus.PENDING)
+                .ifPresent(current -> response.setResult(new ResponseEntity<>(current.name(), HttpStatus.OK)));
+        return response;
+    }
+
     @PatchMapping("/{orderId}/status")
     public ResponseEntity<String> updateOrderStatus(@PathVariable long orderId, @RequestBody String status) {
         String responseStatus = orderService.updateOrderStatus(orderId, status);
@@ -30,13 +83,42 @@ public class OrderController {
     }
 
     @GetMapping("/{orderId}")
-    public ResponseEntity<OrderDetails> getOrder(@PathVariable long orderId) {
-        return orderService.getOrderById(orderId);
+    public ResponseEntity<OrderDetails> getOrder(@PathVariable long orderId, HttpServletRequest request) {
+        Optional<OrderVersion> version = orderService.getOrderVersion(orderId);
+        if (version.isEmpty()) {
+            return orderService.getOrderById(orderId);
+        }
+        Instant lastModified = toInstant(version.get());
+        String eTag = "\"" + orderId + "-" + ChronoUnit.MICROS.between(Instant.EPOCH, lastModified) + "\"";
+        // Answer 304 before loading the order or calling user-service
+        if (isNotModified(request, eTag, lastModified)) {
+            return notModified(eTag, lastModified);
+        }
+        return withVersion(orderService.getOrderById(orderId, version.get()), eTag, lastModified, OrderService::hasUserName);
     }
 
     @GetMapping("/user/{userId}/orders")
-    public ResponseEntity<List<OrderDetails>> getUserOrder(@PathVariable long userId) {
-        return orderService.getOrderByUserId(userId);
+    public ResponseEntity<List<OrderDetails>> getUserOrder(@PathVariable long userId,
+                                                           @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                           HttpServletRequest request) {
+        Optional<OrderVersion> version = orderService.getUserOrdersVersion(userId);
+        if (version.isEmpty()) {
+            return orderService.getOrderByUserId(userId, includeArchived);
+        }
+        // Archiving removes orders from the live table, so the count in the ETag covers it
+        Instant lastModified = toInstant(version.get());
+        String eTag = "\"u" + userId + (includeArchived ? "-a-" : "-") + version.get().getOrderCount() + "-"
+                + ChronoUnit.MICROS.between(Instant.EPOCH, lastModified) + "\"";
+        if (isNotModified(request, eTag, lastModified)) {
+            return notModified(eTag, lastModified);
+        }
+        return withVersion(orderService.getOrderByUserId(userId, includeArchived, version.get()), eTag, lastModified,
+                orders -> orders.stream().allMatch(OrderService::hasUserName));
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<OrderSummaryDetails> getUserOrderSummary(@PathVariable long userId) {
+        return orderSummaryService.getSummary(userId);
     }
 
     @DeleteMapping("/{orderId}/cancel")
@@ -44,4 +126,44 @@ public class OrderController {
         String response = orderService.deleteOrder(orderId);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
+
+    private static <T> DeferredResult<T> completed(T value) {
+        DeferredResult<T> result = new DeferredResult<>();
+        result.setResult(value);
+        return result;
+    }
+
+    /**
+     * Evaluates the request's preconditions only. Without a response attached, ServletWebRequest
+     * does not write validators, so degraded bodies can still be sent without them.
+     */
+    private static boolean isNotModified(HttpServletRequest request, String eTag, Instant lastModified) {
+        return new ServletWebRequest(request).checkNotModified(eTag, lastModified.toEpochMilli());
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag, Instant lastModified) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .build();
+    }
+
+    private static Instant toInstant(OrderVersion version) {
+        return version.getLastUpdatedAt().atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Adds the validators to successful responses only. Bodies degraded by a user-service fallback
+     * must not be revalidated with 304 once user-service recovers, so they get none.
+     */
+    private static <T> ResponseEntity<T> withVersion(ResponseEntity<T> response, String eTag, Instant lastModified,
+                                                     Predicate<T> complete) {
+        if (!response.getStatusCode().is2xxSuccessful() || !complete.test(response.getBody())) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .body(response.getBody());
+    }
 }
@@ -0,0 +1,17 @@
+package org.example.orderservice.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusTotal {
+    private Long userId;
+    private OrderStatus status;
+    private Long orderCount;
+    private BigDecimal totalAmount;
+}
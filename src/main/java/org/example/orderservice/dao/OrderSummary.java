@@ -0,0 +1,97 @@
+package org.example.orderservice.dao;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user order totals, kept in step with {@link Orders} by OrderSummaryService in the same
+ * transaction as each order write. Orders of every status are counted, but only PENDING and
+ * COMPLETED orders add to the total spend: FAILED and CANCELED orders were never charged.
+ */
+@Entity
+@Table(name = "order_user_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummary {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Builder.Default
+    @Column(name = "order_count", nullable = false)
+    private long orderCount = 0;
+
+    @Builder.Default
+    @Column(name = "total_spend", nullable = false)
+    private BigDecimal totalSpend = BigDecimal.ZERO;
+
+    @Builder.Default
+    @Column(name = "pending_count", nullable = false)
+    private long pendingCount = 0;
+
+    @Builder.Default
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount = 0;
+
+    @Builder.Default
+    @Column(name = "canceled_count", nullable = false)
+    private long canceledCount = 0;
+
+    @Builder.Default
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public void addOrders(OrderStatus status, long count, BigDecimal amount) {
+        orderCount += count;
+        if (isSpend(status)) {
+            totalSpend = totalSpend.add(amount);
+        }
+        addToStatus(status, count);
+    }
+
+    public void moveStatus(OrderStatus from, OrderStatus to, BigDecimal amount) {
+        addToStatus(from, -1);
+        addToStatus(to, 1);
+        if (isSpend(from) && !isSpend(to)) {
+            totalSpend = totalSpend.subtract(amount);
+        } else if (!isSpend(from) && isSpend(to)) {
+            totalSpend = totalSpend.add(amount);
+        }
+    }
+
+    public static boolean isSpend(OrderStatus status) {
+        return status == OrderStatus.PENDING || status == OrderStatus.COMPLETED;
+    }
+
+    public long getStatusCount(OrderStatus status) {
+        return switch (status) {
+            case PENDING -> pendingCount;
+            case COMPLETED -> completedCount;
+            case CANCELED -> canceledCount;
+            case FAILED -> failedCount;
+        };
+    }
+
+    private void addToStatus(OrderStatus status, long delta) {
+        switch (status) {
+            case PENDING -> pendingCount += delta;
+            case COMPLETED -> completedCount += delta;
+            case CANCELED -> canceledCount += delta;
+            case FAILED -> failedCount += delta;
+        }
+    }
+}
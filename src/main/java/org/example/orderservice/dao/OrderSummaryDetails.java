@@ -0,0 +1,21 @@
+package org.example.orderservice.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderSummaryDetails {
+
+    private long userId;
+    private long orderCount;
+    private BigDecimal totalSpend;
+    private Map<String, Long> statusCounts;
+}
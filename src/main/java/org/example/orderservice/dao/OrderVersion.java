@@ -0,0 +1,19 @@
+package org.example.orderservice.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap version of an order resource, read without hydrating the order, used to answer
+ * conditional GETs.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderVersion {
+    private Long orderCount;
+    private LocalDateTime lastUpdatedAt;
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,7 +16,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_created", columnList = "user_id, created_at"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,7 +47,20 @@ public class Orders {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Set for orders taken through the async pipeline, the only PENDING orders the worker may pick up again
+    @Column(name = "async_accepted", nullable = false)
+    private boolean asyncAccepted;
 
+    // Async processing is not started again before this time: set while an instance works on the order
+    // and after a failed attempt, so claims expire and retries back off
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "processing_attempts", nullable = false)
+    private int processingAttempts;
+
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "orders", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItems> items ;
 
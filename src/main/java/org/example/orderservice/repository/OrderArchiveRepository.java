@@ -0,0 +1,78 @@
+package org.example.orderservice.repository;
+
+
+import org.example.orderservice.dao.OrderItems;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.OrderStatusTotal;
+import org.example.orderservice.dao.Orders;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read access to orders_archive/order_items_archive, the tables cold order partitions are moved
+ * to. Archived orders are returned as detached {@link Orders} and are never managed by JPA.
+ */
+@Repository
+public class OrderArchiveRepository {
+
+    private static final String FIND_BY_USER_ID = """
+            select o.id, o.user_id, o.total_amount, o.status, o.created_at, o.updated_at,
+                   i.item_id, i.product_id, i.quantity, i.price, i.total_price
+            from orders_archive o
+            left join order_items_archive i on i.order_id = o.id
+            where o.user_id = :userId
+            order by o.id, i.item_id""";
+
+    private static final String SUMMARIZE_BY_USER_IDS = """
+            select user_id, status, count(*) as order_count, sum(total_amount) as total_amount
+            from orders_archive
+            where user_id in (:userIds)
+            group by user_id, status""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OrderArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Orders> findAllByUserId(long userId) {
+        Map<Long, Orders> orders = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_BY_USER_ID, Map.of("userId", userId), rs -> {
+            Orders order = orders.computeIfAbsent(rs.getLong("id"), id -> Orders.builder()
+                    .id(id)
+                    .userId(userId)
+                    .items(new ArrayList<>())
+                    .build());
+            if (order.getStatus() == null) {
+                order.setTotalAmount(rs.getBigDecimal("total_amount"));
+                order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+                order.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                order.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+            }
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                order.addItem(OrderItems.builder()
+                        .id(itemId)
+                        .orders(order)
+                        .orderCreatedAt(order.getCreatedAt())
+                        .productId(rs.getLong("product_id"))
+                        .quantity(rs.getInt("quantity"))
+                        .price(rs.getBigDecimal("price"))
+                        .totalPrice(rs.getBigDecimal("total_price"))
+                        .build());
+            }
+        });
+        return new ArrayList<>(orders.values());
+    }
+
+    public List<OrderStatusTotal> summarizeByUserIds(List<Long> userIds) {
+        return jdbcTemplate.query(SUMMARIZE_BY_USER_IDS, Map.of("userIds", userIds), (rs, rowNum) ->
+                new OrderStatusTotal(rs.getLong("user_id"), OrderStatus.valueOf(rs.getString("status")),
+                        rs.getLong("order_count"), rs.getBigDecimal("total_amount")));
+    }
+}
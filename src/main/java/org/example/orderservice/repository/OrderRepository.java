@@ -1,14 +1,52 @@
 package org.example.orderservice.repository;
 
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.OrderStatusTotal;
+import org.example.orderservice.dao.OrderVersion;
 import org.example.orderservice.dao.Orders;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Orders, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Orders> findAllByUserId(long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Orders o where o.id = :orderId")
+    Optional<Orders> findByIdForUpdate(@Param("orderId") long orderId);
+
+    @Query("select o.id from Orders o where o.status = :status and o.asyncAccepted = true " +
+            "and (o.nextAttemptAt <= :now or (o.nextAttemptAt is null and o.updatedAt < :before)) order by o.id")
+    List<Long> findAsyncAcceptedIdsDue(@Param("status") OrderStatus status, @Param("now") LocalDateTime now,
+                                       @Param("before") LocalDateTime before, Limit limit);
+
+    @Query("select o.status from Orders o where o.id = :orderId")
+    Optional<OrderStatus> findStatusById(@Param("orderId") long orderId);
+
+    @Query("select new org.example.orderservice.dao.OrderVersion(count(o), max(o.updatedAt)) from Orders o where o.id = :orderId")
+    OrderVersion findVersionById(@Param("orderId") long orderId);
+
+    @Query("select new org.example.orderservice.dao.OrderVersion(count(o), max(o.updatedAt)) from Orders o where o.userId = :userId")
+    OrderVersion findVersionByUserId(@Param("userId") long userId);
+
+    @Query("select new org.example.orderservice.dao.OrderStatusTotal(o.userId, o.status, count(o), sum(o.totalAmount)) " +
+            "from Orders o where o.userId in :userIds group by o.userId, o.status")
+    List<OrderStatusTotal> summarizeByUserIds(@Param("userIds") List<Long> userIds);
+
+    @Query("select distinct o.userId from Orders o where o.userId > :afterUserId order by o.userId")
+    List<Long> findUserIdsAfter(@Param("afterUserId") long afterUserId, Limit limit);
 }
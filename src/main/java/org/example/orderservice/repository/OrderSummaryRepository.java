@@ -0,0 +1,33 @@
+package org.example.orderservice.repository;
+
+
+import jakarta.persistence.LockModeType;
+import org.example.orderservice.dao.OrderSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from OrderSummary s where s.userId = :userId")
+    Optional<OrderSummary> findByIdForUpdate(@Param("userId") long userId);
+
+    // Postgres upsert; waits for a concurrent insert of the same user and then skips the row
+    @Modifying
+    @Query(value = "insert into order_user_summary (user_id, order_count, total_spend, pending_count, completed_count, " +
+            "canceled_count, failed_count, updated_at) values (:#{#s.userId}, :#{#s.orderCount}, :#{#s.totalSpend}, " +
+            ":#{#s.pendingCount}, :#{#s.completedCount}, :#{#s.canceledCount}, :#{#s.failedCount}, current_timestamp) " +
+            "on conflict do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("s") OrderSummary summary);
+
+    @Modifying
+    @Query("delete from OrderSummary s where not exists (select 1 from Orders o where o.userId = s.userId)")
+    int deleteWithoutOrders();
+}
@@ -0,0 +1,60 @@
+package org.example.orderservice.service;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot-path logging for a downstream client. Successful calls are logged at INFO for one in
+ * {@code successSampleRate} calls (every call at DEBUG); errors are logged at most once per
+ * interval together with the number of errors suppressed since the last line. Owners call
+ * {@link #flushSuppressedErrors()} once per interval, so errors suppressed after the last line are
+ * reported even when no further error follows.
+ */
+class DownstreamCallLogger {
+
+    private final Logger log;
+    private final String downstream;
+    private final int successSampleRate;
+    private final long errorIntervalNanos;
+    private final AtomicLong nextErrorLogAt;
+    private final LongAdder suppressedErrors = new LongAdder();
+
+    DownstreamCallLogger(Logger log, String downstream, int successSampleRate, long errorIntervalMs) {
+        this.log = log;
+        this.downstream = downstream;
+        this.successSampleRate = successSampleRate;
+        this.errorIntervalNanos = errorIntervalMs * 1_000_000L;
+        this.nextErrorLogAt = new AtomicLong(System.nanoTime());
+    }
+
+    void success(String operation, Object id) {
+        if (log.isDebugEnabled()) {
+            log.debug("{} {} succeeded for {}", downstream, operation, id);
+        } else if (successSampleRate > 0 && log.isInfoEnabled()
+                && ThreadLocalRandom.current().nextInt(successSampleRate) == 0) {
+            log.info("{} {} succeeded for {} (sampled 1/{})", downstream, operation, id, successSampleRate);
+        }
+    }
+
+    void error(String operation, Object id, Throwable error) {
+        long now = System.nanoTime();
+        long next = nextErrorLogAt.get();
+        if (now - next >= 0 && nextErrorLogAt.compareAndSet(next, now + errorIntervalNanos)) {
+            long suppressed = suppressedErrors.sumThenReset();
+            log.error("{} {} failed for {}: {} ({} similar errors suppressed)",
+                    downstream, operation, id, error, suppressed);
+        } else {
+            suppressedErrors.increment();
+        }
+    }
+
+    void flushSuppressedErrors() {
+        long suppressed = suppressedErrors.sumThenReset();
+        if (suppressed > 0) {
+            log.error("{}: {} similar errors suppressed since the last error line", downstream, suppressed);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.orderservice.service;
+
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the monthly range partitions of orders/order_items on Postgres (see
+ * db/postgres/orders-partitioning.sql): creates partitions ahead of time, splits rows caught by
+ * the DEFAULT partitions into monthly ones and moves partitions older than the retention window
+ * to the archive tables in bulk.
+ * <p>
+ * Archiving runs in steps that each commit on their own: cold partitions are detached in a short
+ * transaction, so the lock on orders/order_items is held only for the catalog change, and then
+ * every detached monthly table is copied to the archive and dropped. A run that stops in between
+ * is resumed by the next one, which picks up tables that are detached but not yet dropped.
+ */
+@Service
+@Slf4j
+public class OrderArchiveService {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern MONTHLY_TABLE = Pattern.compile("(orders|order_items)_p(\\d{6})");
+
+    private static final String LIST_ORDER_PARTITIONS = """
+            select c.relname
+            from pg_inherits i
+            join pg_class c on c.oid = i.inhrelid
+            join pg_class p on p.oid = i.inhparent
+            where p.relname = 'orders'""";
+
+    // Monthly tables that are not partitions (any more): detached by an earlier, unfinished run
+    private static final String LIST_DETACHED_TABLES = """
+            select c.relname
+            from pg_class c
+            join pg_namespace n on n.oid = c.relnamespace
+            where c.relkind = 'r' and not c.relispartition and n.nspname = current_schema()
+              and c.relname ~ '^(orders|order_items)_p[0-9]{6}$'
+            order by c.relname""";
+
+    private static final String LIST_DEFAULT_PARTITION_MONTHS = """
+            select distinct to_char(created_at, 'YYYYMM') from orders_default
+            union
+            select distinct to_char(order_created_at, 'YYYYMM') from order_items_default""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${order.archive.retention-months:6}")
+    private int retentionMonths;
+
+    @Value("${order.archive.premake-months:2}")
+    private int premakeMonths;
+
+    @Value("${order.archive.detach-lock-timeout:5s}")
+    private String detachLockTimeout;
+
+    @Scheduled(cron = "${order.archive.cron:-}")
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now();
+        Set<YearMonth> defaultMonths = jdbcTemplate.queryForList(LIST_DEFAULT_PARTITION_MONTHS, String.class).stream()
+                .map(month -> YearMonth.parse(month, PARTITION_SUFFIX))
+                .collect(Collectors.toSet());
+        monthsToCreate(current, premakeMonths, defaultMonths, partitionMonths()).forEach(this::createPartition);
+        List<YearMonth> coldMonths = coldMonths(current, retentionMonths, partitionMonths());
+        coldMonths.forEach(this::detachPartition);
+        if (!coldMonths.isEmpty()) {
+            // Detached rows are gone from orders, so cached orders and query results are stale
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        }
+        jdbcTemplate.queryForList(LIST_DETACHED_TABLES, String.class).forEach(this::archiveTable);
+    }
+
+    /**
+     * Months that need partitions: the current one, the next {@code premakeMonths} and every month
+     * with rows in the DEFAULT partitions (e.g. from before the job first ran), as otherwise
+     * creating that month's partition fails and the rows would never be archived.
+     */
+    static Set<YearMonth> monthsToCreate(YearMonth current, int premakeMonths, Set<YearMonth> defaultMonths,
+                                         Set<YearMonth> existing) {
+        Set<YearMonth> months = new TreeSet<>(defaultMonths);
+        for (int i = 0; i <= premakeMonths; i++) {
+            months.add(current.plusMonths(i));
+        }
+        months.removeAll(existing);
+        return months;
+    }
+
+    /**
+     * Partitioned months older than the retention window, oldest first.
+     */
+    static List<YearMonth> coldMonths(YearMonth current, int retentionMonths, Set<YearMonth> partitions) {
+        YearMonth oldestHotMonth = current.minusMonths(retentionMonths);
+        return partitions.stream()
+                .filter(month -> month.isBefore(oldestHotMonth))
+                .sorted()
+                .toList();
+    }
+
+    private Set<YearMonth> partitionMonths() {
+        return jdbcTemplate.queryForList(LIST_ORDER_PARTITIONS, String.class).stream()
+                .map(MONTHLY_TABLE::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.parse(matcher.group(2), PARTITION_SUFFIX))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Creates the month's partitions detached, moves any rows for that month out of the DEFAULT
+     * partitions and then attaches them, all in one transaction.
+     */
+    private void createPartition(YearMonth month) {
+        String suffix = month.format(PARTITION_SUFFIX);
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        transactionTemplate.executeWithoutResult(status -> {
+            moveFromDefault("orders", "created_at", suffix, from, to);
+            moveFromDefault("order_items", "order_created_at", suffix, from, to);
+            jdbcTemplate.execute("ALTER TABLE orders ATTACH PARTITION orders_p" + suffix
+                    + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            jdbcTemplate.execute("ALTER TABLE order_items ATTACH PARTITION order_items_p" + suffix
+                    + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+        });
+        log.info("Created partition {}", suffix);
+    }
+
+    private void moveFromDefault(String table, String partitionKey, String suffix, String from, String to) {
+        String partition = table + "_p" + suffix;
+        String range = " WHERE " + partitionKey + " >= " + from + " AND " + partitionKey + " < " + to;
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        // One statement, so rows committed into DEFAULT meanwhile are either moved or left in place
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + table + "_default" + range + " RETURNING *)"
+                + " INSERT INTO " + partition + " SELECT * FROM moved");
+        if (moved > 0) {
+            log.info("Moved {} rows of {} out of the default partition", moved, partition);
+        }
+    }
+
+    /**
+     * Detaches the month's partitions in a transaction of its own. DETACH ... CONCURRENTLY is not
+     * available while a DEFAULT partition exists, so the lock timeout bounds how long order reads
+     * and writes queue behind the detach when it has to wait for running queries.
+     */
+    private void detachPartition(YearMonth month) {
+        String suffix = month.format(PARTITION_SUFFIX);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + detachLockTimeout + "'");
+            jdbcTemplate.execute("ALTER TABLE order_items DETACH PARTITION order_items_p" + suffix);
+            jdbcTemplate.execute("ALTER TABLE orders DETACH PARTITION orders_p" + suffix);
+        });
+        log.info("Detached partition {}", suffix);
+    }
+
+    /**
+     * Copies a detached monthly table to its archive table and drops it. Rows already copied by an
+     * earlier attempt are skipped, so the step can be repeated.
+     */
+    private void archiveTable(String table) {
+        boolean orders = table.startsWith("orders_");
+        String columns = orders
+                ? "id, user_id, total_amount, status, created_at, updated_at"
+                : "item_id, order_id, order_created_at, product_id, quantity, price, total_price";
+        String archive = orders ? "orders_archive" : "order_items_archive";
+        int archived = transactionTemplate.execute(status -> {
+            int rows = jdbcTemplate.update("INSERT INTO " + archive + " (" + columns + ") SELECT " + columns
+                    + " FROM " + table + " ON CONFLICT DO NOTHING");
+            jdbcTemplate.execute("DROP TABLE " + table);
+            return rows;
+        });
+        log.info("Archived {}: {} rows", table, archived);
+    }
+}
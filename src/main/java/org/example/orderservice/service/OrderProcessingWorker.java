@@ -0,0 +1,224 @@
+package org.example.orderservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.Orders;
+import org.example.orderservice.repository.OrderRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Bounded pipeline for orders accepted in async mode. Orders are persisted as PENDING by
+ * {@link OrderService#acceptOrder}, queued here after commit and then validated and reserved
+ * in micro-batches, up to {@code order.async.concurrency} orders at a time. Long-poll listeners
+ * are notified when an order leaves PENDING, or with an empty status when it no longer exists.
+ * <p>
+ * Orders left PENDING after a failed attempt are re-queued once their backoff has passed. The
+ * queue lives in memory, so a sweep also re-queues accepted orders that stayed PENDING longer than
+ * {@code order.async.stale-after-ms} or whose retry is due, e.g. after a restart or scale-in. The
+ * worker runs on its own scheduler thread so it does not wait behind the other scheduled jobs.
+ */
+@Component
+@Slf4j
+public class OrderProcessingWorker {
+
+    private final Queue<Long> pendingOrders = new ConcurrentLinkedQueue<>();
+    private final Set<Long> queuedOrders = ConcurrentHashMap.newKeySet();
+    private final Map<Long, List<Consumer<Optional<OrderStatus>>>> waiters = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final ThreadPoolTaskExecutor processor = new ThreadPoolTaskExecutor();
+    private final Semaphore capacity;
+    private final int batchSize;
+    private volatile boolean running;
+
+    // OrderService depends on this worker, so it is looked up on use rather than through a @Lazy proxy
+    @Autowired
+    private ObjectProvider<OrderService> orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${order.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${order.async.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${order.async.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    @Value("${order.async.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    public OrderProcessingWorker(@Value("${order.async.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${order.async.batch-size:20}") int batchSize,
+                                 @Value("${order.async.concurrency:4}") int concurrency) {
+        this.capacity = new Semaphore(queueCapacity);
+        this.batchSize = batchSize;
+        processor.setCorePoolSize(concurrency);
+        processor.setMaxPoolSize(concurrency);
+        processor.setThreadNamePrefix("order-processor-");
+        processor.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.setThreadNamePrefix("order-worker-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::processBatch, Duration.ofMillis(pollIntervalMs));
+        scheduler.scheduleWithFixedDelay(this::sweepStalePending, Duration.ofMillis(sweepIntervalMs));
+        running = true;
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        scheduler.shutdown();
+        processor.shutdown();
+    }
+
+    /**
+     * Reserves a queue slot before the order is persisted, so a full pipeline rejects
+     * the request instead of leaving an order PENDING that will never be processed.
+     */
+    public boolean tryReserve() {
+        return capacity.tryAcquire();
+    }
+
+    public void release() {
+        capacity.release();
+    }
+
+    public void submit(long orderId) {
+        if (queuedOrders.add(orderId)) {
+            pendingOrders.add(orderId);
+        } else {
+            capacity.release();
+        }
+    }
+
+    public void processBatch() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        Long orderId;
+        while (batch.size() < batchSize && (orderId = pendingOrders.poll()) != null) {
+            batch.add(orderId);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        log.debug("Processing batch of {} pending orders", batch.size());
+        CompletableFuture.allOf(batch.stream()
+                        .map(id -> CompletableFuture.runAsync(() -> process(id), processor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    /**
+     * Re-queues accepted orders that have been PENDING for longer than the stale threshold or whose
+     * retry is due and that are not queued on this instance, as far as the queue has free slots.
+     */
+    public void sweepStalePending() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = orderRepository.findAsyncAcceptedIdsDue(OrderStatus.PENDING, now,
+                    now.minus(Duration.ofMillis(staleAfterMs)), Limit.of(batchSize));
+            int requeued = 0;
+            for (Long id : due) {
+                if (queuedOrders.contains(id)) {
+                    continue;
+                }
+                if (!requeue(id)) {
+                    break;
+                }
+                requeued++;
+            }
+            if (requeued > 0) {
+                log.warn("Re-queued {} orders left PENDING for more than {} ms", requeued, staleAfterMs);
+            }
+        } catch (Exception e) {
+            log.error("Failed to sweep stale pending orders", e);
+        }
+    }
+
+    private void process(long orderId) {
+        try {
+            Optional<Orders> order = orderService.getObject().processPendingOrder(orderId);
+            if (order.isEmpty()) {
+                notifyWaiters(orderId, Optional.empty());
+            } else if (order.get().getStatus() == OrderStatus.PENDING) {
+                scheduleRetry(orderId, order.get().getNextAttemptAt());
+            } else {
+                notifyWaiters(orderId, Optional.of(order.get().getStatus()));
+            }
+        } catch (Exception e) {
+            // Still PENDING, the sweep picks it up again once its claim has expired
+            log.error("Failed to process pending order {}", orderId, e);
+        } finally {
+            queuedOrders.remove(orderId);
+            capacity.release();
+        }
+    }
+
+    private void scheduleRetry(long orderId, LocalDateTime nextAttemptAt) {
+        // Without a running scheduler the sweep re-queues the order
+        if (running && nextAttemptAt != null) {
+            scheduler.schedule(() -> requeue(orderId), nextAttemptAt.atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    private boolean requeue(long orderId) {
+        if (!tryReserve()) {
+            return false;
+        }
+        submit(orderId);
+        return true;
+    }
+
+    /**
+     * Registers a long-poll listener for the given order, called once with the new status when
+     * the worker finishes the order, or with an empty status when the order no longer exists. The
+     * returned handle unregisters the listener.
+     */
+    public Runnable onStatusChange(long orderId, Consumer<Optional<OrderStatus>> listener) {
+        List<Consumer<Optional<OrderStatus>>> orderWaiters = waiters.computeIfAbsent(orderId, id -> new CopyOnWriteArrayList<>());
+        orderWaiters.add(listener);
+        return () -> {
+            orderWaiters.remove(listener);
+            waiters.computeIfPresent(orderId, (id, list) -> list.isEmpty() ? null : list);
+        };
+    }
+
+    private void notifyWaiters(long orderId, Optional<OrderStatus> status) {
+        List<Consumer<Optional<OrderStatus>>> orderWaiters = waiters.remove(orderId);
+        if (orderWaiters != null) {
+            orderWaiters.forEach(waiter -> waiter.accept(status));
+        }
+    }
+}
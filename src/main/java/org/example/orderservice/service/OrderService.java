@@ -1,32 +1,56 @@
 package org.example.orderservice.service;
 
 
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.config.DataSourceRoutingContext;
 import org.example.orderservice.dao.*;
+import org.example.orderservice.repository.OrderArchiveRepository;
 import org.example.orderservice.repository.OrderItemsRepository;
 import org.example.orderservice.repository.OrderRepository;
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class OrderService {
 
+    private static final String USER_SERVICE_UNAVAILABLE = "Service Unavailable";
+    private static final String USER_NOT_FOUND = String.valueOf(HttpStatus.NOT_FOUND.value());
+
     @Autowired
     private OrderRepository orderRepository;
+    @Lazy
     @Autowired
     private RestTemplate restTemplate;
 
@@ -34,10 +58,47 @@ public class OrderService {
     private OrderItemsRepository orderItemsRepository;
 
     @Autowired
-    private UserServiceClient userServiceClient;
+    private OrderArchiveRepository orderArchiveRepository;
+
+    // Resolved on first use so the clients stay lazy; a @Lazy proxy of these circuit-breaker proxies breaks AOT
+    @Autowired
+    private ObjectProvider<UserServiceClient> userServiceClient;
+
+    @Autowired
+    private ObjectProvider<ProductServiceClient> productServiceClient;
+
+    @Autowired
+    private OrderProcessingWorker orderProcessingWorker;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private EntityManager entityManager;
 
     @Autowired
-    private ProductServiceClient productServiceClient;
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${order.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    // A claim on an async order expires after the time an accepted order may stay PENDING unnoticed
+    @Value("${order.async.stale-after-ms:300000}")
+    private long claimTimeoutMs;
+
+    @Value("${order.async.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${order.async.max-retry-backoff-ms:60000}")
+    private long maxRetryBackoffMs;
+
+    @Value("${order.async.max-attempts:10}")
+    private int maxAttempts;
+
+    private final Lock[] productLocks = IntStream.range(0, 64).mapToObj(i -> new ReentrantLock()).toArray(Lock[]::new);
 
     @Transactional(rollbackFor = Exception.class)
     public ResponseEntity<OrderResponse> createOrder(OrderRequest orderRequest) {
@@ -45,15 +106,174 @@ public class OrderService {
         if (response.getStatusCode() != HttpStatus.OK) {
             return response;
         }
+        Orders order = savePendingOrder(orderRequest, false);
+        if (order.getId() == null) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        // Update the product quantity in the ProductService
+        updateProductQuantity(orderRequest);
+        // Last, so the user's summary row is locked only until commit and not across the product-service calls
+        orderSummaryService.orderCreated(order);
+        OrderResponse orderResponse = new OrderResponse();
+        orderResponse.setOrderId(order.getId());
+        return new ResponseEntity<>(orderResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Async mode: persists the order as PENDING after local checks only and hands it to the
+     * {@link OrderProcessingWorker}, which runs user/product validation and stock reservation.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ResponseEntity<OrderResponse> acceptOrder(OrderRequest orderRequest) {
+        if (orderRequest.getQuantity() <= 0 || orderRequest.getPrice().signum() <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!orderProcessingWorker.tryReserve()) {
+            log.warn("Order processing queue is full, rejecting order for userId: {}", orderRequest.getUserId());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        Orders order;
+        try {
+            order = savePendingOrder(orderRequest, true);
+            orderSummaryService.orderCreated(order);
+        } catch (RuntimeException e) {
+            orderProcessingWorker.release();
+            throw e;
+        }
+        long orderId = order.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    orderProcessingWorker.submit(orderId);
+                } else {
+                    orderProcessingWorker.release();
+                }
+            }
+        });
+        OrderResponse orderResponse = new OrderResponse();
+        orderResponse.setOrderId(orderId);
+        return new ResponseEntity<>(orderResponse, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Runs validation and stock reservation for an order accepted in async mode. The order is
+     * claimed in a short transaction first, so no row lock or connection is held during the
+     * user-service and product-service calls, and a claim of another instance is respected until
+     * it expires. Client errors fail the order; unavailable downstreams and other errors leave it
+     * PENDING with a backoff before the next attempt, up to {@code order.async.max-attempts}.
+     *
+     * @return the order afterwards, empty when it no longer exists
+     */
+    public Optional<Orders> processPendingOrder(long orderId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Claim claim = transactionTemplate.execute(status -> claimPendingOrder(orderId));
+        if (claim.request() == null) {
+            return Optional.ofNullable(claim.order());
+        }
+        OrderRequest orderRequest = claim.request();
+        HttpStatusCode result = validateRequest(orderRequest).getStatusCode();
+        if (result.isSameCodeAs(HttpStatus.OK)) {
+            result = reserveStock(orderId, orderRequest);
+        }
+        HttpStatusCode outcome = result;
+        return transactionTemplate.execute(status -> finishPendingOrder(orderId, outcome));
+    }
+
+    private Claim claimPendingOrder(long orderId) {
+        Optional<Orders> pending = orderRepository.findByIdForUpdate(orderId);
+        if (pending.isEmpty()) {
+            log.warn("Pending order {} no longer exists", orderId);
+            return new Claim(null, null);
+        }
+        Orders order = pending.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (order.getStatus() != OrderStatus.PENDING || !order.isAsyncAccepted()
+                || (order.getNextAttemptAt() != null && order.getNextAttemptAt().isAfter(now))) {
+            return new Claim(order, null);
+        }
+        order.setNextAttemptAt(now.plus(Duration.ofMillis(claimTimeoutMs)));
+        order.setProcessingAttempts(order.getProcessingAttempts() + 1);
+        OrderItems item = order.getItems().get(0);
+        OrderRequest orderRequest = OrderRequest.builder()
+                .userId(order.getUserId())
+                .productId(item.getProductId())
+                .quantity(item.getQuantity())
+                .price(item.getPrice())
+                .build();
+        return new Claim(order, orderRequest);
+    }
+
+    private HttpStatusCode reserveStock(long orderId, OrderRequest orderRequest) {
+        // product-service takes absolute quantities, so reservations of one product must not overlap
+        Lock productLock = productLocks[Math.floorMod(Long.hashCode(orderRequest.getProductId()), productLocks.length)];
+        productLock.lock();
+        try {
+            updateProductQuantity(orderRequest);
+            return HttpStatus.OK;
+        } catch (HttpStatusCodeException e) {
+            log.error("Failed to reserve stock for order {}: {}", orderId, e.getMessage());
+            return e.getStatusCode();
+        } catch (RuntimeException e) {
+            log.error("Failed to reserve stock for order {}: {}", orderId, e.getMessage());
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    private Optional<Orders> finishPendingOrder(long orderId, HttpStatusCode result) {
+        Optional<Orders> processed = orderRepository.findByIdForUpdate(orderId);
+        if (processed.isEmpty()) {
+            log.warn("Order {} was deleted while it was processed", orderId);
+            return processed;
+        }
+        Orders order = processed.get();
+        if (order.getStatus() != OrderStatus.PENDING) {
+            log.warn("Order {} was changed to {} while it was processed", orderId, order.getStatus());
+            return processed;
+        }
+        if (result.isSameCodeAs(HttpStatus.OK)) {
+            order.setStatus(OrderStatus.COMPLETED);
+        } else if (result.is4xxClientError() || order.getProcessingAttempts() >= maxAttempts) {
+            log.info("Order {} failed after {} attempts with status {}", orderId, order.getProcessingAttempts(), result);
+            order.setStatus(OrderStatus.FAILED);
+        } else {
+            long backoffMs = Math.min(retryBackoffMs << Math.min(order.getProcessingAttempts() - 1, 20), maxRetryBackoffMs);
+            order.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMs)));
+            log.warn("Order {} left PENDING after status {}, retrying in {} ms", orderId, result, backoffMs);
+            return processed;
+        }
+        order.setNextAttemptAt(null);
+        orderSummaryService.orderStatusChanged(order, OrderStatus.PENDING);
+        readYourWritesTracker.recordWrite(order.getUserId(), orderId);
+        return processed;
+    }
+
+    /**
+     * Outcome of a claim: the order as read under lock, and the request to process when the claim
+     * was taken. The order is null when it no longer exists.
+     */
+    private record Claim(Orders order, OrderRequest request) {
+    }
+
+    public Optional<OrderStatus> getOrderStatus(long orderId) {
+        return orderRepository.findStatusById(orderId);
+    }
+
+    private Orders savePendingOrder(OrderRequest orderRequest, boolean asyncAccepted) {
         // Create and save the order
         Orders order = Orders.builder()
                 .userId(orderRequest.getUserId())
+                .asyncAccepted(asyncAccepted)
                 .totalAmount(orderRequest.getPrice().multiply(BigDecimal.valueOf(orderRequest.getQuantity())))
                 .status(OrderStatus.PENDING)
                 .build();
-        order = orderRepository.save(order);
+        // Flush so @CreationTimestamp has filled createdAt, which items copy as their partition key
+        order = orderRepository.saveAndFlush(order);
 
         OrderItems orderItems = OrderItems.builder()
+                .orderCreatedAt(order.getCreatedAt())
                 .price(orderRequest.getPrice())
                 .productId(orderRequest.getProductId())
                 .quantity(orderRequest.getQuantity())
@@ -63,21 +283,15 @@ public class OrderService {
         order.addItem(orderItems);
         orderItems.setOrders(order);
         orderItemsRepository.save(orderItems);
-        if (order.getId() == null) {
-            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
-        }
-        // Update the product quantity in the ProductService
-        updateProductQuantity(orderRequest, order);
-        OrderResponse orderResponse = new OrderResponse();
-        orderResponse.setOrderId(order.getId());
-        return new ResponseEntity<>(orderResponse, HttpStatus.OK);
+        readYourWritesTracker.recordWrite(order.getUserId(), order.getId());
+        return order;
     }
 
-    private void updateProductQuantity(OrderRequest orderRequest, Orders order) {
-        ResponseEntity<ProductResponse> response = productServiceClient.getProductDetails(orderRequest.getProductId());
+    private void updateProductQuantity(OrderRequest orderRequest) {
+        ResponseEntity<ProductResponse> response = productServiceClient.getObject().getProductDetails(orderRequest.getProductId());
         ProductResponse product = Objects.requireNonNull(response.getBody());
         orderRequest.setQuantity(product.getQuantity() - orderRequest.getQuantity());
-        ResponseEntity<String> productResponse = productServiceClient.updateProductQuantity(orderRequest);
+        ResponseEntity<String> productResponse = productServiceClient.getObject().updateProductQuantity(orderRequest);
         if (productResponse.getStatusCode() != HttpStatus.OK) {
             log.error("Failed to update product quantity for productId: {}", orderRequest.getProductId());
             throw new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to update product quantity");
@@ -110,7 +324,7 @@ public class OrderService {
 
     private HttpStatusCode existsByProductId(OrderRequest orderRequest) {
         try {
-            ResponseEntity<ProductResponse> response = productServiceClient.getProductDetails(orderRequest.getProductId());
+            ResponseEntity<ProductResponse> response = productServiceClient.getObject().getProductDetails(orderRequest.getProductId());
             if (response.getStatusCode() == HttpStatus.OK) {
                 ProductResponse productResponse = response.getBody();
                 return productResponse != null ? validateProductAndPriceQuantity(productResponse, orderRequest) :
@@ -140,7 +354,7 @@ public class OrderService {
     private HttpStatusCode validateUser(Long userId) {
         try {
             ;
-            ResponseEntity<UserServiceResponse> response = userServiceClient.getUserDetail(userId);
+            ResponseEntity<UserServiceResponse> response = userServiceClient.getObject().getUserDetail(userId);
 
             // Handle both successful response and fallback response
             if (response.getStatusCode() == HttpStatus.OK) {
@@ -167,8 +381,39 @@ public class OrderService {
     }
 
 
+    /**
+     * Version of a single order for conditional GETs, read with one scalar query. Empty when
+     * the order does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderVersion> getOrderVersion(long orderId) {
+        OrderVersion version = DataSourceRoutingContext.onPrimary(readYourWritesTracker.hasRecentOrderWrite(orderId),
+                () -> orderRepository.findVersionById(orderId));
+        return version.getOrderCount() == 0 ? Optional.empty() : Optional.of(version);
+    }
+
+    /**
+     * Version of a user's order history: the number of orders and their latest update time.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderVersion> getUserOrdersVersion(long userId) {
+        OrderVersion version = DataSourceRoutingContext.onPrimary(readYourWritesTracker.hasRecentUserWrite(userId),
+                () -> orderRepository.findVersionByUserId(userId));
+        return version.getOrderCount() == 0 ? Optional.empty() : Optional.of(version);
+    }
+
     public ResponseEntity<OrderDetails> getOrderById(Long orderId) {
-        Optional<Orders> order = orderRepository.findById(orderId);
+        return getOrderById(orderId, null);
+    }
+
+    /**
+     * Loads the order for a response validated against {@code version}. The version is read from
+     * the database while the order may come from this instance's second-level cache, so a cached
+     * order older than the version (changed through another instance) is evicted and reloaded.
+     * Only the read runs in the read-only transaction, user-service is called after it has ended.
+     */
+    public ResponseEntity<OrderDetails> getOrderById(Long orderId, OrderVersion version) {
+        Optional<Orders> order = inReadOnlyTransaction(() -> loadOrder(orderId, version));
         OrderDetails orderResponse = new OrderDetails();
         if (order.isEmpty()) {
             return new ResponseEntity<>(orderResponse, HttpStatus.NOT_FOUND);
@@ -181,9 +426,23 @@ public class OrderService {
         return new ResponseEntity<>(orderResponse, HttpStatus.OK);
     }
 
+    private Optional<Orders> loadOrder(Long orderId, OrderVersion version) {
+        // Read-only transactions go to the replica unless this order was written very recently. The
+        // order may come from the second-level cache while its items do not, so the whole load is pinned.
+        return DataSourceRoutingContext.onPrimary(readYourWritesTracker.hasRecentOrderWrite(orderId), () -> {
+            Optional<Orders> order = orderRepository.findById(orderId);
+            if (version != null && order.filter(loaded -> loaded.getUpdatedAt().isBefore(version.getLastUpdatedAt())).isPresent()) {
+                evictCachedOrders(List.of(order.get()));
+                order = orderRepository.findById(orderId);
+            }
+            order.ifPresent(loaded -> Hibernate.initialize(loaded.getItems()));
+            return order;
+        });
+    }
+
     private void setOrderResponseDetails(OrderDetails orderResponse, Orders orders) {
         String userName = getUserName(orders.getUserId());
-        if (!userName.equals("404")) {
+        if (!userName.equals(USER_NOT_FOUND)) {
             orderResponse.setOrderId(orders.getId());
             orderResponse.setUserName(userName);
             orderResponse.setTotalAmount(orders.getTotalAmount());
@@ -202,13 +461,13 @@ public class OrderService {
 
     private String getUserName(Long userId) {
         try {
-            ResponseEntity<UserServiceResponse> response = userServiceClient.getUserDetail(userId);
+            ResponseEntity<UserServiceResponse> response = userServiceClient.getObject().getUserDetail(userId);
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 return response.getBody().getUserName();
             } else if (response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
                 log.warn("User service unavailable for userId: {}, returning default name", userId);
-                return "Service Unavailable"; // Return a default name when service is down
+                return USER_SERVICE_UNAVAILABLE; // Return a default name when service is down
             }
 
         } catch (HttpClientErrorException.NotFound e) {
@@ -217,18 +476,22 @@ public class OrderService {
             log.error("Error getting user name for userId {}: {}", userId, e.getMessage());
         }
 
-        return String.valueOf(HttpStatus.NOT_FOUND.value());
+        return USER_NOT_FOUND;
     }
 
     @Transactional
     public String updateOrderStatus(long orderId, String status) {
         Orders order = orderRepository.findById(orderId).orElseThrow(() -> new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Order with ID " + orderId + " does not exist"));
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.valueOf(status));
         orderRepository.save(order);
+        orderSummaryService.orderStatusChanged(order, previousStatus);
+        readYourWritesTracker.recordWrite(order.getUserId(), orderId);
         return String.format("Order with ID %d has been updated to status %s", orderId, status);
     }
 
+    @Transactional
     public String deleteOrder(long orderId) {
         Optional<Orders> orders = orderRepository.findById(orderId);
         if (orders.isEmpty()) {
@@ -236,13 +499,23 @@ public class OrderService {
             return String.format(HttpStatus.NOT_FOUND.toString(), "Order with ID " + orderId + " does not exist");
         } else {
             orderRepository.deleteById(orderId);
+            orderSummaryService.orderDeleted(orders.get());
+            readYourWritesTracker.recordWrite(orders.get().getUserId(), orderId);
             return String.format("Order with ID %d has been deleted", orderId);
         }
     }
 
-    public ResponseEntity<List<OrderDetails>> getOrderByUserId(long userId) {
+    public ResponseEntity<List<OrderDetails>> getOrderByUserId(long userId, boolean includeArchived) {
+        return getOrderByUserId(userId, includeArchived, null);
+    }
+
+    /**
+     * Loads the user's orders for a response validated against {@code version}, reloading them
+     * when the cached query result or orders do not match it, as for {@link #getOrderById(Long, OrderVersion)}.
+     */
+    public ResponseEntity<List<OrderDetails>> getOrderByUserId(long userId, boolean includeArchived, OrderVersion version) {
         List<OrderDetails> orderResponseList = new ArrayList<>();
-        List<Orders> orders = orderRepository.findAllByUserId(userId);
+        List<Orders> orders = inReadOnlyTransaction(() -> loadUserOrders(userId, includeArchived, version));
 
         if (orders.isEmpty()) {
             log.error("Order with User ID {} does not exist. Status: {}", userId, HttpStatus.NOT_FOUND);
@@ -267,4 +540,60 @@ public class OrderService {
 
         return new ResponseEntity<>(orderResponseList, HttpStatus.OK);
     }
+
+    private List<Orders> loadUserOrders(long userId, boolean includeArchived, OrderVersion version) {
+        return DataSourceRoutingContext.onPrimary(readYourWritesTracker.hasRecentUserWrite(userId), () -> {
+            List<Orders> liveOrders = orderRepository.findAllByUserId(userId);
+            if (version != null && !matches(liveOrders, version)) {
+                evictCachedOrders(liveOrders);
+                sessionFactory().getCache().evictDefaultQueryRegion();
+                liveOrders = orderRepository.findAllByUserId(userId);
+            }
+            liveOrders.forEach(order -> Hibernate.initialize(order.getItems()));
+            List<Orders> orders = new ArrayList<>(liveOrders);
+            // Archived orders are only read on request and only where the archive tables exist
+            if (includeArchived && archiveEnabled) {
+                orders.addAll(orderArchiveRepository.findAllByUserId(userId));
+            }
+            return orders;
+        });
+    }
+
+    /**
+     * Runs a read in a read-only transaction, which is routed to the replica, so that the
+     * connection is released before any user-service call.
+     */
+    private <T> T inReadOnlyTransaction(Supplier<T> read) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> read.get());
+    }
+
+    /**
+     * Whether the details were filled from a successful user-service lookup rather than from the
+     * "Service Unavailable"/"404" fallbacks of {@link #getUserName}.
+     */
+    public static boolean hasUserName(OrderDetails details) {
+        return details.getUserName() != null
+                && !USER_SERVICE_UNAVAILABLE.equals(details.getUserName())
+                && !USER_NOT_FOUND.equals(details.getUserName());
+    }
+
+    private static boolean matches(List<Orders> orders, OrderVersion version) {
+        return orders.size() == version.getOrderCount()
+                && orders.stream().anyMatch(order -> !order.getUpdatedAt().isBefore(version.getLastUpdatedAt()));
+    }
+
+    private void evictCachedOrders(List<Orders> orders) {
+        Cache cache = sessionFactory().getCache();
+        orders.forEach(order -> {
+            cache.evictEntityData(Orders.class, order.getId());
+            cache.evictCollectionData(Orders.class.getName() + ".items", order.getId());
+            entityManager.detach(order);
+        });
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+    }
 }
@@ -0,0 +1,216 @@
+package org.example.orderservice.service;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.orderservice.config.DataSourceRoutingContext;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.OrderStatusTotal;
+import org.example.orderservice.dao.OrderSummary;
+import org.example.orderservice.dao.OrderSummaryDetails;
+import org.example.orderservice.dao.Orders;
+import org.example.orderservice.repository.OrderArchiveRepository;
+import org.example.orderservice.repository.OrderRepository;
+import org.example.orderservice.repository.OrderSummaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-user {@link OrderSummary} projection. The write hooks are called from
+ * OrderService as the last step of the order transaction and apply the order's change as a delta
+ * to the locked summary row, so the lock is held only until commit. A user without a row yet gets
+ * one initialised from their orders instead, so the projection heals itself on the user's next
+ * write; reads never aggregate orders. Summaries are backfilled on startup while the table is empty.
+ */
+@Service
+@Slf4j
+public class OrderSummaryService {
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${order.summary.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    @Value("${order.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${order.summary.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Transactional(rollbackFor = Exception.class)
+    public void orderCreated(Orders order) {
+        applyChange(order.getUserId(), summary -> summary.addOrders(order.getStatus(), 1, order.getTotalAmount()));
+    }
+
+    /**
+     * Called after {@code order} moved from {@code from} to its current status.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void orderStatusChanged(Orders order, OrderStatus from) {
+        if (from == order.getStatus()) {
+            return;
+        }
+        applyChange(order.getUserId(), summary -> summary.moveStatus(from, order.getStatus(), order.getTotalAmount()));
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public void orderDeleted(Orders order) {
+        applyChange(order.getUserId(), summary -> summary.addOrders(order.getStatus(), -1, order.getTotalAmount().negate()));
+    }
+
+    /**
+     * Reads the stored summary only. Users without a row, e.g. whose orders were all written by
+     * an instance without the projection after the startup backfill, are answered with 404 until
+     * their next order write or the next rebuild.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<OrderSummaryDetails> getSummary(long userId) {
+        Optional<OrderSummary> summary = DataSourceRoutingContext.onPrimary(readYourWritesTracker.hasRecentUserWrite(userId),
+                () -> orderSummaryRepository.findById(userId));
+        if (summary.isEmpty() || summary.get().getOrderCount() == 0) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        OrderSummary result = summary.get();
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        Arrays.stream(OrderStatus.values()).forEach(status -> statusCounts.put(status.name(), result.getStatusCount(status)));
+        OrderSummaryDetails details = OrderSummaryDetails.builder()
+                .userId(userId)
+                .orderCount(result.getOrderCount())
+                .totalSpend(result.getTotalSpend())
+                .statusCounts(statusCounts)
+                .build();
+        return new ResponseEntity<>(details, HttpStatus.OK);
+    }
+
+    /**
+     * Runs the rebuild once when the summary table is still empty, e.g. on the first start after
+     * the projection was introduced, so existing users do not get 404 until they order again.
+     * Failures are logged only: the next start or the scheduled rebuild tries again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSummaries() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            if (orderSummaryRepository.count() == 0) {
+                log.info("Order summary table is empty, backfilling it from existing orders");
+                rebuildSummaries();
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill order summaries", e);
+        }
+    }
+
+    /**
+     * Recomputes every summary from the orders table (plus the archive when archiving is enabled),
+     * one batch of users per transaction, and drops summaries of users that no longer have orders.
+     * Disabled unless a cron is configured.
+     */
+    @Scheduled(cron = "${order.summary.rebuild-cron:-}")
+    public void rebuildSummaries() {
+        long lastUserId = Long.MIN_VALUE;
+        int rebuilt = 0;
+        List<Long> userIds;
+        while (!(userIds = orderRepository.findUserIdsAfter(lastUserId, Limit.of(rebuildBatchSize))).isEmpty()) {
+            List<Long> batch = userIds;
+            transactionTemplate.executeWithoutResult(status -> rebuildBatch(batch));
+            rebuilt += batch.size();
+            lastUserId = batch.get(batch.size() - 1);
+        }
+        // Users whose orders were all archived have no live orders but keep their lifetime totals
+        int removed = archiveEnabled ? 0
+                : transactionTemplate.execute(status -> orderSummaryRepository.deleteWithoutOrders());
+        log.info("Rebuilt order summaries for {} users, removed {} stale summaries", rebuilt, removed);
+    }
+
+    private void rebuildBatch(List<Long> userIds) {
+        // Lock existing rows first so concurrent order writes queue behind the rebuild
+        Map<Long, OrderSummary> existing = userIds.stream()
+                .map(orderSummaryRepository::findByIdForUpdate)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toMap(OrderSummary::getUserId, Function.identity()));
+        Map<Long, OrderSummary> computed = computeSummaries(userIds);
+        computed.forEach((userId, fresh) -> {
+            OrderSummary summary = existing.get(userId);
+            if (summary == null) {
+                orderSummaryRepository.save(fresh);
+            } else {
+                summary.setOrderCount(fresh.getOrderCount());
+                summary.setTotalSpend(fresh.getTotalSpend());
+                summary.setPendingCount(fresh.getPendingCount());
+                summary.setCompletedCount(fresh.getCompletedCount());
+                summary.setCanceledCount(fresh.getCanceledCount());
+                summary.setFailedCount(fresh.getFailedCount());
+            }
+        });
+    }
+
+    private void applyChange(long userId, Consumer<OrderSummary> change) {
+        Optional<OrderSummary> summary = orderSummaryRepository.findByIdForUpdate(userId);
+        if (summary.isPresent()) {
+            change.accept(summary.get());
+        } else if (!initialiseSummary(userId)) {
+            // Initialised concurrently by another transaction, which did not see this change
+            change.accept(orderSummaryRepository.findByIdForUpdate(userId).orElseThrow());
+        }
+    }
+
+    /**
+     * Inserts the user's first summary row, computed from the orders as this transaction sees
+     * them, which already includes its own change. The insert uses the transaction's connection and
+     * skips a row that a concurrent first write created meanwhile, after waiting for it to commit.
+     *
+     * @return whether this transaction created the row
+     */
+    private boolean initialiseSummary(long userId) {
+        OrderSummary summary = computeSummaries(List.of(userId)).getOrDefault(userId, OrderSummary.builder().userId(userId).build());
+        return orderSummaryRepository.insertIfAbsent(summary) == 1;
+    }
+
+    private Map<Long, OrderSummary> computeSummaries(List<Long> userIds) {
+        Map<Long, OrderSummary> summaries = new LinkedHashMap<>();
+        List<OrderStatusTotal> totals = new ArrayList<>(orderRepository.summarizeByUserIds(userIds));
+        if (archiveEnabled) {
+            totals.addAll(orderArchiveRepository.summarizeByUserIds(userIds));
+        }
+        for (OrderStatusTotal total : totals) {
+            summaries.computeIfAbsent(total.getUserId(), id -> OrderSummary.builder().userId(id).build())
+                    .addOrders(total.getStatus(), total.getOrderCount(),
+                            total.getTotalAmount() != null ? total.getTotalAmount() : BigDecimal.ZERO);
+        }
+        return summaries;
+    }
+}
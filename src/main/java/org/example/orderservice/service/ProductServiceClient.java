@@ -9,50 +9,55 @@ import org.example.orderservice.dao.OrderRequest;
 import org.example.orderservice.dao.ProductResponse;
 import org.example.orderservice.dao.UserServiceResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.*;
+import org.springframework.web.util.UriTemplate;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@Lazy
 @Slf4j
 public class ProductServiceClient {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final HttpHeaders JSON_HEADERS = jsonHeaders();
+    private static final HttpEntity<?> GET_REQUEST = new HttpEntity<>(JSON_HEADERS);
+
     private final RestTemplate restTemplate;
-    private final String productServiceUrl;
+    private final UriTemplate productUri;
+    private final UriTemplate productQuantityUri;
+    private final DownstreamCallLogger callLogger;
 
-    public ProductServiceClient(RestTemplate restTemplate, @Value("${services.product.url}") String productServiceUrl) {
+    public ProductServiceClient(RestTemplate restTemplate, @Value("${services.product.url}") String productServiceUrl,
+                                @Value("${order.logging.downstream.success-sample-rate:100}") int successSampleRate,
+                                @Value("${order.logging.downstream.error-interval-ms:10000}") long errorIntervalMs) {
         this.restTemplate = restTemplate;
-        this.productServiceUrl = productServiceUrl;
+        this.productUri = new UriTemplate(productServiceUrl + "products/{productId}");
+        this.productQuantityUri = new UriTemplate(productServiceUrl + "products/{productId}/quantity");
+        this.callLogger = new DownstreamCallLogger(log, "product-service", successSampleRate, errorIntervalMs);
     }
 
 
     @CircuitBreaker(name = "product-service", fallbackMethod = "getProductDetailsFallback")
     public ResponseEntity<ProductResponse> getProductDetails(@NotNull Long productId) {
-        String url = productServiceUrl + "products/" + productId;
-        log.info("Calling product service at: {}", url);
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<?> requestEntity = new HttpEntity<>(headers);
-
             ResponseEntity<String> response = restTemplate.exchange(
-                    url,
+                    productUri.expand(productId),
                     HttpMethod.GET,
-                    requestEntity,
+                    GET_REQUEST,
                     String.class
             );
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
                 if (contentType != null && contentType.contains("application/json")) {
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    ProductResponse productResponse = objectMapper.readValue(response.getBody(), ProductResponse.class);
+                    ProductResponse productResponse = OBJECT_MAPPER.readValue(response.getBody(), ProductResponse.class);
+                    callLogger.success("getProductDetails", productId);
                     return ResponseEntity.ok(productResponse);
                 } else {
                     throw new RestClientException("Invalid content type received: " + contentType);
@@ -62,23 +67,20 @@ public class ProductServiceClient {
             }
 
         } catch (HttpClientErrorException | HttpServerErrorException e) {
-            log.error("HTTP error calling product service for productId {}: {}", productId, e.getMessage());
             throw new RestClientException("HTTP error: " + e.getMessage(), e);
         } catch (UnknownContentTypeException e) {
-            log.error("Content type error calling product service for productId {}: {}", productId, e.getMessage());
             throw new RestClientException("Content type error: " + e.getMessage(), e);
         } catch (JsonProcessingException e) {
-            log.error("JSON parsing error for productId {}: {}", productId, e.getMessage());
             throw new RestClientException("JSON parsing error: " + e.getMessage(), e);
         } catch (Exception e) {
-            log.error("Unexpected error calling product service for productId {}: {}", productId, e.getMessage());
             throw new RestClientException("Service call failed: " + e.getMessage(), e);
         }
 
     }
 
     public ResponseEntity<ProductResponse> getProductDetailsFallback(Long productId, Throwable throwable) {
-        log.error("Circuit breaker fallback triggered for product ID {}: {}", productId, throwable.getMessage());
+        // Every failure of the call ends up here, so it is logged here only
+        callLogger.error("getProductDetails fallback", productId, throwable);
 
         // Create a default response or return appropriate error
         ProductResponse defaultResponse = new ProductResponse();
@@ -92,23 +94,14 @@ public class ProductServiceClient {
 
     @CircuitBreaker(name = "product-service", fallbackMethod = "updateProductQuantityFallback")
     public ResponseEntity<String> updateProductQuantity(OrderRequest orderRequest) {
-        String url = productServiceUrl + "products/" + orderRequest.getProductId()+"/quantity";
-        log.info("Calling product service at: {}", url);
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            Map<String,Object> variables = new HashMap<>();
-            variables.put("quantity",orderRequest.getQuantity());
-            ObjectMapper objectMapper = new ObjectMapper();
             // Create the request body
-            String requestBody = objectMapper.writeValueAsString(variables);
+            String requestBody = OBJECT_MAPPER.writeValueAsString(Map.of("quantity", orderRequest.getQuantity()));
 
-            HttpEntity<?> requestEntity = new HttpEntity<>(requestBody,headers);
+            HttpEntity<?> requestEntity = new HttpEntity<>(requestBody, JSON_HEADERS);
 
             ResponseEntity<String> response = restTemplate.exchange(
-                    url,
+                    productQuantityUri.expand(orderRequest.getProductId()),
                     HttpMethod.PATCH,
                     requestEntity,
                     String.class
@@ -117,6 +110,7 @@ public class ProductServiceClient {
             if (response.getStatusCode().is2xxSuccessful()) {
                 String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
                 if (contentType != null && contentType.contains("application/json")) {
+                    callLogger.success("updateProductQuantity", orderRequest.getProductId());
                     return ResponseEntity.ok(response.getBody());
                 } else {
                     throw new RestClientException("Invalid content type received: " + contentType);
@@ -126,23 +120,20 @@ public class ProductServiceClient {
             }
 
         } catch (HttpClientErrorException | HttpServerErrorException e) {
-            log.error("HTTP error calling product service for product quantity {}: {}", orderRequest.getQuantity(), e.getMessage());
             throw new RestClientException("HTTP error: " + e.getMessage(), e);
         } catch (UnknownContentTypeException e) {
-            log.error("Content type error calling product service for product quantity{}: {}", orderRequest.getQuantity(), e.getMessage());
             throw new RestClientException("Content type error: " + e.getMessage(), e);
         } catch (JsonProcessingException e) {
-            log.error("JSON parsing error for product quantity {}: {}", orderRequest.getQuantity(), e.getMessage());
             throw new RestClientException("JSON parsing error: " + e.getMessage(), e);
         } catch (Exception e) {
-            log.error("Unexpected error calling product service for product quantity {}: {}", orderRequest.getQuantity(), e.getMessage());
             throw new RestClientException("Service call failed: " + e.getMessage(), e);
         }
 
     }
 
     public ResponseEntity<String> updateProductQuantityFallback(OrderRequest orderRequest, Throwable throwable) {
-        log.error("Circuit breaker fallback triggered for product quantity {}: {}", orderRequest.getQuantity(), throwable.getMessage());
+        // Every failure of the call ends up here, so it is logged here only
+        callLogger.error("updateProductQuantity fallback", orderRequest.getProductId(), throwable);
 
         // Create a default response or return appropriate error
         String defaultResponse = "Service Unavailable";
@@ -152,4 +143,16 @@ public class ProductServiceClient {
         // OR return just the status without body:
         // return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
+
+    @Scheduled(fixedDelayString = "${order.logging.downstream.error-interval-ms:10000}")
+    public void flushSuppressedErrors() {
+        callLogger.flushSuppressedErrors();
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
 }
@@ -0,0 +1,55 @@
+package org.example.orderservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers recent writes per user and per order so reads issued within the configured window
+ * are served from the primary instead of a possibly lagging replica. State is local to this
+ * instance, so the guarantee holds for clients that stay on the same instance.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Map<Long, Long> userWrites = new ConcurrentHashMap<>();
+    private final Map<Long, Long> orderWrites = new ConcurrentHashMap<>();
+    private final long windowMs;
+
+    public ReadYourWritesTracker(@Value("${order.datasource.read-your-writes-window-ms:5000}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void recordWrite(Long userId, Long orderId) {
+        long expiresAt = System.currentTimeMillis() + windowMs;
+        if (userId != null) {
+            userWrites.put(userId, expiresAt);
+        }
+        if (orderId != null) {
+            orderWrites.put(orderId, expiresAt);
+        }
+    }
+
+    public boolean hasRecentUserWrite(long userId) {
+        return isRecent(userWrites, userId);
+    }
+
+    public boolean hasRecentOrderWrite(long orderId) {
+        return isRecent(orderWrites, orderId);
+    }
+
+    @Scheduled(fixedDelayString = "${order.datasource.read-your-writes-window-ms:5000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        userWrites.values().removeIf(expiresAt -> expiresAt < now);
+        orderWrites.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    private static boolean isRecent(Map<Long, Long> writes, long key) {
+        Long expiresAt = writes.get(key);
+        return expiresAt != null && expiresAt >= System.currentTimeMillis();
+    }
+}
@@ -5,49 +5,52 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
 import org.example.orderservice.dao.UserServiceResponse;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.*;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.util.UriTemplate;
+
 import java.util.List;
 
 @Service
+@Lazy
 @Slf4j
 public class UserServiceClient {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final HttpEntity<?> GET_REQUEST = new HttpEntity<>(jsonHeaders());
+
     private final RestTemplate restTemplate;
-    private final String userServiceUrl;
+    private final UriTemplate userUri;
+    private final DownstreamCallLogger callLogger;
 
     // Constructor for Spring to inject dependencies
-    public UserServiceClient(RestTemplate restTemplate, @Value("${services.user.url}") String userServiceUrl) {
+    public UserServiceClient(RestTemplate restTemplate, @Value("${services.user.url}") String userServiceUrl,
+                             @Value("${order.logging.downstream.success-sample-rate:100}") int successSampleRate,
+                             @Value("${order.logging.downstream.error-interval-ms:10000}") long errorIntervalMs) {
         this.restTemplate = restTemplate;
-        this.userServiceUrl = userServiceUrl;
+        this.userUri = new UriTemplate(userServiceUrl + "{userId}");
+        this.callLogger = new DownstreamCallLogger(log, "user-service", successSampleRate, errorIntervalMs);
     }
 
     @CircuitBreaker(name = "user-service", fallbackMethod = "getUserDetailFallback")
     public ResponseEntity<UserServiceResponse> getUserDetail(Long userId) {
-        String url = userServiceUrl + userId;
-        log.info("Calling user service at: {}", url);
-
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<?> requestEntity = new HttpEntity<>(headers);
-
             ResponseEntity<String> response = restTemplate.exchange(
-                    url,
+                    userUri.expand(userId),
                     HttpMethod.GET,
-                    requestEntity,
+                    GET_REQUEST,
                     String.class
             );
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
                 if (contentType != null && contentType.contains("application/json")) {
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    UserServiceResponse userResponse = objectMapper.readValue(response.getBody(), UserServiceResponse.class);
+                    UserServiceResponse userResponse = OBJECT_MAPPER.readValue(response.getBody(), UserServiceResponse.class);
+                    callLogger.success("getUserDetail", userId);
                     return ResponseEntity.ok(userResponse);
                 } else {
                     throw new RestClientException("Invalid content type received: " + contentType);
@@ -57,22 +60,19 @@ public class UserServiceClient {
             }
 
         } catch (HttpClientErrorException | HttpServerErrorException e) {
-            log.error("HTTP error calling user service for userId {}: {}", userId, e.getMessage());
             throw new RestClientException("HTTP error: " + e.getMessage(), e);
         } catch (UnknownContentTypeException e) {
-            log.error("Content type error calling user service for userId {}: {}", userId, e.getMessage());
             throw new RestClientException("Content type error: " + e.getMessage(), e);
         } catch (JsonProcessingException e) {
-            log.error("JSON parsing error for userId {}: {}", userId, e.getMessage());
             throw new RestClientException("JSON parsing error: " + e.getMessage(), e);
         } catch (Exception e) {
-            log.error("Unexpected error calling user service for userId {}: {}", userId, e.getMessage());
             throw new RestClientException("Service call failed: " + e.getMessage(), e);
         }
     }
 
     public ResponseEntity<UserServiceResponse> getUserDetailFallback(Long userId, Exception ex) {
-        log.error("Circuit breaker fallback triggered for user ID {}: {}", userId, ex.getMessage());
+        // Every failure of the call ends up here, so it is logged here only
+        callLogger.error("getUserDetail fallback", userId, ex);
 
         UserServiceResponse defaultResponse = new UserServiceResponse();
         // Set default values - you might want to set some default values here
@@ -82,4 +82,16 @@ public class UserServiceClient {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                 .body(defaultResponse);
     }
-}
\ No newline at end of file
+
+    @Scheduled(fixedDelayString = "${order.logging.downstream.error-interval-ms:10000}")
+    public void flushSuppressedErrors() {
+        callLogger.flushSuppressedErrors();
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+}
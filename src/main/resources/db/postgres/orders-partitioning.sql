@@ -0,0 +1,79 @@
+-- Range-partitioned order tables for Postgres. Apply on an empty schema (or after migrating data out of the
+-- plain tables); OrderArchiveService keeps monthly partitions ahead of time, moves rows out of DEFAULT and
+-- moves cold partitions to the archive.
+-- Partitions are named <table>_pYYYYMM; the DEFAULT partitions only catch rows outside the managed range.
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+
+CREATE TABLE orders (
+    id                  BIGINT         NOT NULL,
+    user_id             BIGINT         NOT NULL,
+    total_amount        NUMERIC(38, 2) NOT NULL,
+    status              VARCHAR(255)   NOT NULL,
+    created_at          TIMESTAMP(6)   NOT NULL,
+    updated_at          TIMESTAMP(6)   NOT NULL,
+    async_accepted      BOOLEAN        NOT NULL DEFAULT FALSE,
+    next_attempt_at     TIMESTAMP(6),
+    processing_attempts INTEGER        NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_orders_id ON orders (id);
+CREATE INDEX idx_orders_user_created ON orders (user_id, created_at);
+
+-- Items are partitioned on their order's created_at so both tables detach and archive month by month.
+-- A foreign key to orders would block detaching partitions; JPA cascades keep items consistent instead.
+CREATE TABLE order_items (
+    item_id          BIGINT         NOT NULL,
+    order_id         BIGINT         NOT NULL,
+    order_created_at TIMESTAMP(6)   NOT NULL,
+    product_id       BIGINT         NOT NULL,
+    quantity         INTEGER        NOT NULL,
+    price            NUMERIC(38, 2) NOT NULL,
+    total_price      NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (item_id, order_created_at)
+) PARTITION BY RANGE (order_created_at);
+
+CREATE INDEX idx_order_items_order ON order_items (order_id);
+
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+CREATE TABLE order_items_default PARTITION OF order_items DEFAULT;
+
+-- Partitions for the current and the next two months (order.archive.premake-months), so rows go to
+-- monthly partitions before the archive job first runs. The job moves anything found in DEFAULT later.
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR i IN 0..2 LOOP
+        month := date_trunc('month', now())::date + make_interval(months => i);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS orders_p%s PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, month + interval '1 month');
+        EXECUTE format('CREATE TABLE IF NOT EXISTS order_items_p%s PARTITION OF order_items FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, month + interval '1 month');
+    END LOOP;
+END $$;
+
+CREATE TABLE orders_archive (
+    id           BIGINT         NOT NULL PRIMARY KEY,
+    user_id      BIGINT         NOT NULL,
+    total_amount NUMERIC(38, 2) NOT NULL,
+    status       VARCHAR(255)   NOT NULL,
+    created_at   TIMESTAMP(6)   NOT NULL,
+    updated_at   TIMESTAMP(6)   NOT NULL
+);
+
+CREATE INDEX idx_orders_archive_user ON orders_archive (user_id);
+
+CREATE TABLE order_items_archive (
+    item_id          BIGINT         NOT NULL PRIMARY KEY,
+    order_id         BIGINT         NOT NULL,
+    order_created_at TIMESTAMP(6)   NOT NULL,
+    product_id       BIGINT         NOT NULL,
+    quantity         INTEGER        NOT NULL,
+    price            NUMERIC(38, 2) NOT NULL,
+    total_price      NUMERIC(38, 2) NOT NULL
+);
+
+CREATE INDEX idx_order_items_archive_order ON order_items_archive (order_id);
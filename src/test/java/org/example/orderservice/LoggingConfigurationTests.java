@@ -0,0 +1,32 @@
+package org.example.orderservice;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "logging.file.name=target/logging-test/order-service.log")
+class LoggingConfigurationTests {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingConfigurationTests.class);
+
+    @Test
+    void logsToTheConfiguredFile() throws Exception {
+        String marker = "file appender check " + System.nanoTime();
+        log.info(marker);
+
+        Path logFile = Path.of("target/logging-test/order-service.log");
+        // Events reach the file through the async appender
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!(Files.exists(logFile) && Files.readString(logFile).contains(marker))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.exists(logFile) && Files.readString(logFile).contains(marker));
+    }
+}
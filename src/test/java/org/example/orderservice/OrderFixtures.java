@@ -0,0 +1,53 @@
+package org.example.orderservice;
+
+import org.example.orderservice.dao.OrderItems;
+import org.example.orderservice.dao.OrderRequest;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.Orders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Orders and order requests shared by the tests. Requests are for product 3 at a price of 5,
+ * which matches the product-service stub of {@link OrderServiceTestSupport}.
+ */
+public final class OrderFixtures {
+
+    public static final long PRODUCT_ID = 3L;
+    public static final BigDecimal PRICE = BigDecimal.valueOf(5);
+
+    private OrderFixtures() {
+    }
+
+    public static OrderRequest orderRequest(long userId, int quantity) {
+        return OrderRequest.builder()
+                .userId(userId)
+                .productId(PRODUCT_ID)
+                .quantity(quantity)
+                .price(PRICE)
+                .build();
+    }
+
+    /**
+     * An unsaved order with a single item of quantity one, costing {@code amount}.
+     */
+    public static Orders order(long userId, OrderStatus status, BigDecimal amount) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        Orders order = Orders.builder()
+                .userId(userId)
+                .totalAmount(amount)
+                .status(status)
+                .createdAt(createdAt)
+                .build();
+        order.addItem(OrderItems.builder()
+                .orders(order)
+                .orderCreatedAt(createdAt)
+                .productId(PRODUCT_ID)
+                .quantity(1)
+                .price(amount)
+                .totalPrice(amount)
+                .build());
+        return order;
+    }
+}
@@ -1,10 +1,8 @@
 package org.example.orderservice;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class OrderServiceApplicationTests {
+class OrderServiceApplicationTests extends OrderServiceTestSupport {
 
     @Test
     void contextLoads() {
@@ -0,0 +1,63 @@
+package org.example.orderservice;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.orderservice.dao.Orders;
+import org.example.orderservice.dao.ProductResponse;
+import org.example.orderservice.dao.UserServiceResponse;
+import org.example.orderservice.repository.OrderRepository;
+import org.example.orderservice.service.ProductServiceClient;
+import org.example.orderservice.service.UserServiceClient;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Base of the tests that run against the application with user-service and product-service
+ * mocked. Subclasses that add no properties or mocks of their own share one application context.
+ * By default every user exists and product 3 costs 5 with 100 in stock.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public abstract class OrderServiceTestSupport {
+
+    @MockitoBean
+    protected UserServiceClient userServiceClient;
+
+    @MockitoBean
+    protected ProductServiceClient productServiceClient;
+
+    @Autowired
+    protected OrderRepository orderRepository;
+
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void stubDownstreamServices() {
+        when(userServiceClient.getUserDetail(anyLong()))
+                .thenReturn(ResponseEntity.ok(new UserServiceResponse(1L, "alice", "200")));
+        when(productServiceClient.getProductDetails(anyLong()))
+                .thenReturn(ResponseEntity.ok(ProductResponse.builder().price(5.0).quantity(100).build()));
+        when(productServiceClient.updateProductQuantity(any())).thenReturn(ResponseEntity.ok("{}"));
+    }
+
+    protected long saveOrder(Orders order) {
+        return transactionTemplate.execute(status -> orderRepository.save(order).getId());
+    }
+
+    protected void evictSecondLevelCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+}
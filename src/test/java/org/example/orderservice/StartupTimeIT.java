@@ -0,0 +1,148 @@
+package org.example.orderservice;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares time-to-first-request of three launches of the extracted jar. Runs in the
+ * integration-test phase of mvn -Paot verify, after the CDS archive has been recorded, and logs
+ * the figures and the speed-ups against the baseline and the plain launch.
+ * <ul>
+ * <li>baseline: plain JVM launch as deployed before the aot profile, with the config server client
+ * enabled (fail-fast with retry, as in application.yml), answered by a stub config server;</li>
+ * <li>plain: the same launch with the config server client disabled, as the aot profile runs it;</li>
+ * <li>AOT+CDS: the plain launch with the AOT initializers and the CDS archive.</li>
+ * </ul>
+ * All three run the same jar, so the lazily created downstream clients and the deferred JPA
+ * bootstrap are part of every figure; Eureka and the database connection are off in all of them.
+ */
+class StartupTimeIT {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeIT.class);
+    private static final int RUNS = 3;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final String CONFIG_DISABLED = "-Dspring.cloud.config.enabled=false";
+    private static final String EMPTY_ENVIRONMENT = """
+            {"name":"order-service","profiles":["local"],"label":"master","version":null,"state":null,"propertySources":[]}""";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void reportsTimeToFirstRequestAgainstTheConfigServerBaseline() throws Exception {
+        Path cdsDirectory = Path.of(System.getProperty("cds.directory"));
+        assertTrue(Files.exists(cdsDirectory.resolve("application.jsa")), "Run with mvn -Paot verify");
+
+        List<String> contextArgs = Arrays.asList(System.getProperty("aot.context.args").trim().split("\\s+"));
+        List<String> configServerArgs = new ArrayList<>(contextArgs);
+        configServerArgs.remove(CONFIG_DISABLED);
+
+        HttpServer configServer = stubConfigServer();
+        try {
+            configServerArgs.add("-Dservices.config.url=http://localhost:"
+                    + configServer.getAddress().getPort() + "/config-server/");
+            Duration baseline = fastestStartup(cdsDirectory, configServerArgs);
+            Duration plain = fastestStartup(cdsDirectory, contextArgs);
+            Duration optimised = fastestStartup(cdsDirectory, contextArgs,
+                    "-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true");
+
+            log.info("Time to first request: baseline (config server) {} ms, plain {} ms, AOT+CDS {} ms, "
+                            + "speed-up {}x against the baseline, {}x against the plain launch",
+                    baseline.toMillis(), plain.toMillis(), optimised.toMillis(),
+                    String.format("%.2f", (double) baseline.toMillis() / optimised.toMillis()),
+                    String.format("%.2f", (double) plain.toMillis() / optimised.toMillis()));
+        } finally {
+            configServer.stop(0);
+        }
+    }
+
+    private Duration fastestStartup(Path cdsDirectory, List<String> contextArgs, String... jvmArgs) throws Exception {
+        Duration fastest = null;
+        for (int i = 0; i < RUNS; i++) {
+            Duration startup = timeToFirstRequest(cdsDirectory, contextArgs, jvmArgs);
+            fastest = fastest == null || startup.compareTo(fastest) < 0 ? startup : fastest;
+        }
+        return fastest;
+    }
+
+    private Duration timeToFirstRequest(Path cdsDirectory, List<String> contextArgs, String... jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(jvmArgs));
+        command.addAll(contextArgs);
+        command.add("-Dserver.port=" + port);
+        command.add("-jar");
+        command.add(System.getProperty("jar.name"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/order-service/actuator/info")).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(cdsDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new AssertionError("Application exited with " + process.exitValue());
+                }
+                try {
+                    httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    return Duration.ofNanos(System.nanoTime() - start);
+                } catch (ConnectException e) {
+                    Thread.sleep(20);
+                }
+            }
+            throw new AssertionError("Application did not answer within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Answers every config request with an empty environment, so the baseline pays for the config
+     * server round trip but starts with the local configuration only.
+     */
+    private static HttpServer stubConfigServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = EMPTY_ENVIRONMENT.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
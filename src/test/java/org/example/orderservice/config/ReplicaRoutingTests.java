@@ -0,0 +1,94 @@
+package org.example.orderservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderDetails;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.UserServiceResponse;
+import org.example.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.example.orderservice.OrderFixtures.order;
+import static org.example.orderservice.OrderFixtures.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+// Routing replaces the data source, so this class needs a context of its own
+@TestPropertySource(properties = "order.datasource.routing.enabled=true")
+class ReplicaRoutingTests extends OrderServiceTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void readsGoToTheReplica() {
+        long orderId = saveOrder(order(41L, OrderStatus.PENDING, BigDecimal.TEN));
+        evictSecondLevelCache();
+        expectNoTransactionDuringUserLookup();
+        double replica = routed("replica");
+        double primary = routed("primary");
+
+        assertEquals(HttpStatus.OK, orderService.getOrderById(orderId).getStatusCode());
+        assertEquals(HttpStatus.OK, orderService.getOrderByUserId(41L, false).getStatusCode());
+
+        assertEquals(replica + 2, routed("replica"));
+        assertEquals(primary, routed("primary"));
+    }
+
+    @Test
+    void readsAfterAWriteArePinnedToThePrimary() {
+        long orderId = orderService.createOrder(orderRequest(42L, 1)).getBody().getOrderId();
+        evictSecondLevelCache();
+        expectNoTransactionDuringUserLookup();
+        double replica = routed("replica");
+        double primary = routed("primary");
+
+        assertEquals(HttpStatus.OK, orderService.getOrderById(orderId).getStatusCode());
+        assertEquals(HttpStatus.OK, orderService.getOrderByUserId(42L, false).getStatusCode());
+
+        assertEquals(replica, routed("replica"));
+        assertEquals(primary + 2, routed("primary"));
+    }
+
+    @Test
+    void itemsOfAnOrderCachedOnInsertAreLoadedFromThePrimary() {
+        // The order itself is in the second-level cache after the insert, its items are not
+        long orderId = orderService.createOrder(orderRequest(43L, 1)).getBody().getOrderId();
+        double replica = routed("replica");
+        double primary = routed("primary");
+
+        ResponseEntity<OrderDetails> order = orderService.getOrderById(orderId);
+        ResponseEntity<List<OrderDetails>> orders = orderService.getOrderByUserId(43L, false);
+
+        assertEquals(1, order.getBody().getOrderDetails().size());
+        assertEquals(1, orders.getBody().get(0).getOrderDetails().size());
+        assertEquals(replica, routed("replica"));
+        assertTrue(routed("primary") > primary);
+    }
+
+    private void expectNoTransactionDuringUserLookup() {
+        when(userServiceClient.getUserDetail(anyLong())).thenAnswer(invocation -> {
+            // Reads release their connection before user-service is called
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            return ResponseEntity.ok(new UserServiceResponse(1L, "alice", "200"));
+        });
+    }
+
+    private double routed(String pool) {
+        return meterRegistry.get("order.datasource.routed.connections").tag("pool", pool).counter().count();
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.orderservice.controller;
+
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.UserServiceResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.example.orderservice.OrderFixtures.order;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderControllerTests extends OrderServiceTestSupport {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void unchangedOrderIsAnsweredWithNotModifiedWithoutCallingUserService() throws Exception {
+        when(userServiceClient.getUserDetail(anyLong()))
+                .thenReturn(ResponseEntity.ok(new UserServiceResponse(21L, "alice", "200")));
+        long orderId = saveOrder(order(21L, OrderStatus.PENDING, BigDecimal.TEN));
+
+        String eTag = mockMvc.perform(get("/api/order/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        clearInvocations(userServiceClient);
+
+        mockMvc.perform(get("/api/order/{orderId}", orderId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        verify(userServiceClient, never()).getUserDetail(anyLong());
+    }
+
+    @Test
+    void bodyDegradedByUserServiceFallbackHasNoValidators() throws Exception {
+        when(userServiceClient.getUserDetail(anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        long orderId = saveOrder(order(22L, OrderStatus.PENDING, BigDecimal.TEN));
+
+        mockMvc.perform(get("/api/order/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+        mockMvc.perform(get("/api/order/user/{userId}/orders", 22L))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void orderChangedOutsideThisInstanceIsNotServedFromTheCache() throws Exception {
+        when(userServiceClient.getUserDetail(anyLong()))
+                .thenReturn(ResponseEntity.ok(new UserServiceResponse(23L, "carol", "200")));
+        long orderId = saveOrder(order(23L, OrderStatus.PENDING, BigDecimal.TEN));
+        String eTag = mockMvc.perform(get("/api/order/{orderId}", orderId))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/order/user/{userId}/orders", 23L))
+                .andExpect(jsonPath("$[0].status").value("PENDING"));
+
+        // Another instance completes the order; this instance's second-level cache still holds PENDING
+        jdbcTemplate.update("update orders set status = 'COMPLETED', updated_at = ? where id = ?",
+                LocalDateTime.now().plusMinutes(1), orderId);
+
+        String newETag = mockMvc.perform(get("/api/order/{orderId}", orderId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+        mockMvc.perform(get("/api/order/user/{userId}/orders", 23L))
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"));
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.orderservice.repository;
+
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderItems;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.OrderStatusTotal;
+import org.example.orderservice.dao.Orders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderArchiveRepositoryTests extends OrderServiceTestSupport {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 14, 10, 0);
+
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The archive tables only exist in db/postgres/orders-partitioning.sql, not in the JPA schema
+    @BeforeEach
+    void createArchiveTables() {
+        jdbcTemplate.execute("""
+                CREATE TABLE orders_archive (
+                    id           BIGINT         NOT NULL PRIMARY KEY,
+                    user_id      BIGINT         NOT NULL,
+                    total_amount NUMERIC(38, 2) NOT NULL,
+                    status       VARCHAR(255)   NOT NULL,
+                    created_at   TIMESTAMP(6)   NOT NULL,
+                    updated_at   TIMESTAMP(6)   NOT NULL
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE order_items_archive (
+                    item_id          BIGINT         NOT NULL PRIMARY KEY,
+                    order_id         BIGINT         NOT NULL,
+                    order_created_at TIMESTAMP(6)   NOT NULL,
+                    product_id       BIGINT         NOT NULL,
+                    quantity         INTEGER        NOT NULL,
+                    price            NUMERIC(38, 2) NOT NULL,
+                    total_price      NUMERIC(38, 2) NOT NULL
+                )""");
+        archiveOrder(1L, 71L, "15", OrderStatus.COMPLETED);
+        archiveItem(11L, 1L, 3L, 1, "5");
+        archiveItem(12L, 1L, 4L, 2, "5");
+        archiveOrder(2L, 71L, "20", OrderStatus.COMPLETED);
+        archiveItem(21L, 2L, 3L, 4, "5");
+        archiveOrder(3L, 71L, "7", OrderStatus.CANCELED);
+        archiveOrder(4L, 72L, "9", OrderStatus.COMPLETED);
+    }
+
+    @AfterEach
+    void dropArchiveTables() {
+        jdbcTemplate.execute("DROP TABLE order_items_archive");
+        jdbcTemplate.execute("DROP TABLE orders_archive");
+    }
+
+    @Test
+    void archivedOrdersAreLoadedWithTheirItems() {
+        List<Orders> orders = orderArchiveRepository.findAllByUserId(71L);
+
+        assertEquals(List.of(1L, 2L, 3L), orders.stream().map(Orders::getId).toList());
+        Orders first = orders.get(0);
+        assertEquals(71L, first.getUserId());
+        assertEquals(OrderStatus.COMPLETED, first.getStatus());
+        assertEquals(0, new BigDecimal("15").compareTo(first.getTotalAmount()));
+        assertEquals(CREATED_AT, first.getCreatedAt());
+        List<OrderItems> items = first.getItems();
+        assertEquals(List.of(11L, 12L), items.stream().map(OrderItems::getId).toList());
+        assertEquals(4L, items.get(1).getProductId());
+        assertEquals(2, items.get(1).getQuantity());
+        assertEquals(0, new BigDecimal("10").compareTo(items.get(1).getTotalPrice()));
+        assertEquals(CREATED_AT, items.get(1).getOrderCreatedAt());
+        // Orders without archived items are returned too
+        assertTrue(orders.get(2).getItems().isEmpty());
+    }
+
+    @Test
+    void archivedOrdersAreSummarizedPerUserAndStatus() {
+        List<OrderStatusTotal> totals = orderArchiveRepository.summarizeByUserIds(List.of(71L, 72L, 73L)).stream()
+                .sorted(Comparator.comparing(OrderStatusTotal::getUserId).thenComparing(OrderStatusTotal::getStatus))
+                .toList();
+
+        assertEquals(3, totals.size());
+        assertTotal(totals.get(0), 71L, OrderStatus.COMPLETED, 2, "35");
+        assertTotal(totals.get(1), 71L, OrderStatus.CANCELED, 1, "7");
+        assertTotal(totals.get(2), 72L, OrderStatus.COMPLETED, 1, "9");
+    }
+
+    private void archiveOrder(long id, long userId, String totalAmount, OrderStatus status) {
+        jdbcTemplate.update("INSERT INTO orders_archive (id, user_id, total_amount, status, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", id, userId, new BigDecimal(totalAmount), status.name(), CREATED_AT, CREATED_AT);
+    }
+
+    private void archiveItem(long itemId, long orderId, long productId, int quantity, String price) {
+        BigDecimal unitPrice = new BigDecimal(price);
+        jdbcTemplate.update("INSERT INTO order_items_archive (item_id, order_id, order_created_at, product_id, quantity, "
+                        + "price, total_price) VALUES (?, ?, ?, ?, ?, ?, ?)", itemId, orderId, CREATED_AT, productId, quantity,
+                unitPrice, unitPrice.multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    private static void assertTotal(OrderStatusTotal total, long userId, OrderStatus status, long orderCount, String totalAmount) {
+        assertEquals(userId, total.getUserId());
+        assertEquals(status, total.getStatus());
+        assertEquals(orderCount, total.getOrderCount());
+        assertEquals(0, new BigDecimal(totalAmount).compareTo(total.getTotalAmount()));
+    }
+}
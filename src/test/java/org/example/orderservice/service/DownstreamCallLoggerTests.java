@@ -0,0 +1,184 @@
+package org.example.orderservice.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.SocketTimeoutException;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownstreamCallLoggerTests {
+
+    private static final int CALLS = 10_000;
+
+    private final LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger logger = loggerContext.getLogger(DownstreamCallLoggerTests.class);
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        events.start();
+        logger.addAppender(events);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(events);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void successesAreSampled() {
+        DownstreamCallLogger callLogger = new DownstreamCallLogger(logger, "product-service", 100, 10_000);
+
+        for (int i = 0; i < CALLS; i++) {
+            callLogger.success("getProductDetails", i);
+        }
+
+        // One in 100 on average; the bounds leave room for the random sampling
+        int lines = events.list.size();
+        assertTrue(lines > 30 && lines < 300, lines + " lines for " + CALLS + " calls");
+    }
+
+    @Test
+    void errorsAreLoggedOncePerIntervalWithTheSuppressedCount() {
+        DownstreamCallLogger callLogger = new DownstreamCallLogger(logger, "user-service", 100, 60_000);
+        SocketTimeoutException timeout = new SocketTimeoutException("Read timed out");
+
+        for (int i = 0; i < CALLS; i++) {
+            callLogger.error("getUserDetail", i, timeout);
+        }
+
+        assertEquals(1, events.list.size());
+        assertEquals(Level.ERROR, events.list.get(0).getLevel());
+    }
+
+    @Test
+    void everySuccessIsLoggedAtDebug() {
+        logger.setLevel(Level.DEBUG);
+        DownstreamCallLogger callLogger = new DownstreamCallLogger(logger, "product-service", 100, 10_000);
+
+        for (int i = 0; i < 10; i++) {
+            callLogger.success("getProductDetails", i);
+        }
+
+        assertEquals(10, events.list.size());
+    }
+
+    @Test
+    void suppressedErrorsAreReportedByTheFlush() {
+        DownstreamCallLogger callLogger = new DownstreamCallLogger(logger, "user-service", 100, 60_000);
+        SocketTimeoutException timeout = new SocketTimeoutException("Read timed out");
+        for (int i = 0; i < 5; i++) {
+            callLogger.error("getUserDetail", i, timeout);
+        }
+
+        callLogger.flushSuppressedErrors();
+        callLogger.flushSuppressedErrors();
+
+        assertEquals(2, events.list.size());
+        assertEquals("user-service: 4 similar errors suppressed since the last error line",
+                events.list.get(1).getFormattedMessage());
+    }
+
+    /**
+     * Compares the logging the clients did before DownstreamCallLogger (an INFO line with the
+     * request URL per call, two ERROR lines per failure: operation and circuit breaker fallback)
+     * with the current logging, by the bytes written through a pattern encoder and the bytes the
+     * calling thread allocates for the same calls.
+     */
+    @Test
+    void logVolumeAndAllocationAreCutAgainstPerCallLogging() {
+        Logger benchmarkLogger = loggerContext.getLogger(DownstreamCallLoggerTests.class.getName() + ".volume");
+        ByteCounter bytes = new ByteCounter();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %logger{39} : %m%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(bytes);
+        appender.start();
+        benchmarkLogger.addAppender(appender);
+        benchmarkLogger.setAdditive(false);
+        benchmarkLogger.setLevel(Level.INFO);
+        try {
+            String url = "http://localhost:8081/api/users/";
+            SocketTimeoutException timeout = new SocketTimeoutException("Read timed out");
+            IntConsumer perCall = i -> {
+                benchmarkLogger.info("Calling user service at: {}", url + i);
+                if (i % 10 == 0) {
+                    benchmarkLogger.error("Unexpected error calling user service for userId {}: {}", i, timeout.getMessage());
+                    benchmarkLogger.error("Circuit breaker fallback triggered for user ID {}: {}", i, timeout.getMessage());
+                }
+            };
+            DownstreamCallLogger callLogger = new DownstreamCallLogger(benchmarkLogger, "user-service", 100, 10_000);
+            IntConsumer sampled = i -> {
+                if (i % 10 == 0) {
+                    callLogger.error("getUserDetail fallback", i, timeout);
+                } else {
+                    callLogger.success("getUserDetail", i);
+                }
+            };
+            // Warm up both paths so class loading and JIT do not count towards either side
+            measure(perCall, bytes);
+            measure(sampled, bytes);
+
+            long[] before = measure(perCall, bytes);
+            long[] after = measure(sampled, bytes);
+
+            assertTrue(after[0] * 20 < before[0], "log bytes " + before[0] + " -> " + after[0]);
+            assertTrue(after[1] * 5 < before[1], "allocated bytes " + before[1] + " -> " + after[1]);
+        } finally {
+            benchmarkLogger.detachAppender(appender);
+            benchmarkLogger.setAdditive(true);
+            benchmarkLogger.setLevel(null);
+            appender.stop();
+        }
+    }
+
+    /**
+     * @return the bytes logged and the bytes allocated by this thread for {@link #CALLS} calls
+     */
+    private static long[] measure(IntConsumer call, ByteCounter bytes) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        bytes.count = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CALLS; i++) {
+            call.accept(i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new long[]{bytes.count, allocated};
+    }
+
+    private static class ByteCounter extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
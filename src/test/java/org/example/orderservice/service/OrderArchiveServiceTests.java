@@ -0,0 +1,48 @@
+package org.example.orderservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderArchiveServiceTests {
+
+    private static final YearMonth CURRENT = YearMonth.of(2026, 10);
+
+    @Test
+    void currentAndPremadeMonthsAreCreated() {
+        Set<YearMonth> months = OrderArchiveService.monthsToCreate(CURRENT, 2, Set.of(), Set.of());
+
+        assertEquals(Set.of(YearMonth.of(2026, 10), YearMonth.of(2026, 11), YearMonth.of(2026, 12)), months);
+    }
+
+    @Test
+    void monthsWithRowsInTheDefaultPartitionAreCreated() {
+        Set<YearMonth> months = OrderArchiveService.monthsToCreate(CURRENT, 0,
+                Set.of(YearMonth.of(2025, 3), YearMonth.of(2027, 1)), Set.of());
+
+        assertEquals(Set.of(YearMonth.of(2025, 3), YearMonth.of(2026, 10), YearMonth.of(2027, 1)), months);
+    }
+
+    @Test
+    void existingPartitionsAreNotCreatedAgain() {
+        Set<YearMonth> months = OrderArchiveService.monthsToCreate(CURRENT, 2, Set.of(YearMonth.of(2026, 10)),
+                Set.of(YearMonth.of(2026, 10), YearMonth.of(2026, 11)));
+
+        assertEquals(Set.of(YearMonth.of(2026, 12)), months);
+    }
+
+    @Test
+    void monthsBeforeTheRetentionWindowAreCold() {
+        Set<YearMonth> partitions = Set.of(YearMonth.of(2026, 4), YearMonth.of(2026, 3), YearMonth.of(2025, 12),
+                YearMonth.of(2026, 10), YearMonth.of(2026, 11));
+
+        List<YearMonth> cold = OrderArchiveService.coldMonths(CURRENT, 6, partitions);
+
+        // 2026-04 is the oldest month kept with a retention of six months
+        assertEquals(List.of(YearMonth.of(2025, 12), YearMonth.of(2026, 3)), cold);
+    }
+}
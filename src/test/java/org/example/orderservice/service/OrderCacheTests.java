@@ -0,0 +1,40 @@
+package org.example.orderservice.service;
+
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderDetails;
+import org.example.orderservice.dao.OrderStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+
+import static org.example.orderservice.OrderFixtures.order;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderCacheTests extends OrderServiceTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void repeatedOrderLookupDoesNotTouchTheDatabase() {
+        long orderId = saveOrder(order(7L, OrderStatus.PENDING, BigDecimal.TEN));
+        evictSecondLevelCache();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ResponseEntity<OrderDetails> first = orderService.getOrderById(orderId);
+        long statementsAfterFirst = statistics.getPrepareStatementCount();
+        ResponseEntity<OrderDetails> second = orderService.getOrderById(orderId);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(1, second.getBody().getOrderDetails().size());
+        assertEquals(statementsAfterFirst, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.orderservice.service;
+
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderResponse;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.Orders;
+import org.example.orderservice.dao.UserServiceResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.orderservice.OrderFixtures.PRICE;
+import static org.example.orderservice.OrderFixtures.order;
+import static org.example.orderservice.OrderFixtures.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderProcessingWorkerTests extends OrderServiceTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderProcessingWorker orderProcessingWorker;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void acceptedOrderIsCompletedByTheWorker() {
+        ResponseEntity<OrderResponse> response = orderService.acceptOrder(orderRequest(31L, 2));
+        long orderId = response.getBody().getOrderId();
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(Optional.of(OrderStatus.PENDING), orderService.getOrderStatus(orderId));
+
+        orderProcessingWorker.processBatch();
+
+        assertEquals(Optional.of(OrderStatus.COMPLETED), orderService.getOrderStatus(orderId));
+        verify(productServiceClient).updateProductQuantity(any());
+    }
+
+    @Test
+    void acceptedOrderForUnknownUserFails() {
+        when(userServiceClient.getUserDetail(32L)).thenReturn(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        long orderId = orderService.acceptOrder(orderRequest(32L, 1)).getBody().getOrderId();
+
+        orderProcessingWorker.processBatch();
+
+        assertEquals(Optional.of(OrderStatus.FAILED), orderService.getOrderStatus(orderId));
+        verify(productServiceClient, never()).updateProductQuantity(any());
+    }
+
+    @Test
+    void longPollIsAnsweredWhenTheWorkerFinishesTheOrder() throws Exception {
+        long orderId = orderService.acceptOrder(orderRequest(33L, 1)).getBody().getOrderId();
+
+        MvcResult poll = mockMvc.perform(get("/api/order/{orderId}/status", orderId).param("waitMs", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        orderProcessingWorker.processBatch();
+
+        mockMvc.perform(asyncDispatch(poll))
+                .andExpect(content().string("COMPLETED"));
+    }
+
+    @Test
+    void acceptedOrderLostFromTheQueueIsPickedUpBySweep() {
+        // As if accepted by an instance that stopped before processing it
+        Orders accepted = order(34L, OrderStatus.PENDING, PRICE);
+        accepted.setAsyncAccepted(true);
+        long orderId = saveOrder(accepted);
+        long syncOrderId = orderService.createOrder(orderRequest(35L, 1)).getBody().getOrderId();
+
+        orderProcessingWorker.sweepStalePending();
+        orderProcessingWorker.processBatch();
+
+        assertEquals(Optional.of(OrderStatus.COMPLETED), orderService.getOrderStatus(orderId));
+        // Orders created synchronously stay PENDING and are never reserved a second time
+        assertEquals(Optional.of(OrderStatus.PENDING), orderService.getOrderStatus(syncOrderId));
+        verify(productServiceClient, times(2)).updateProductQuantity(any());
+    }
+
+    @Test
+    void unavailableDownstreamLeavesTheOrderPendingForARetry() {
+        when(userServiceClient.getUserDetail(36L)).thenReturn(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        long orderId = orderService.acceptOrder(orderRequest(36L, 1)).getBody().getOrderId();
+
+        orderProcessingWorker.processBatch();
+
+        assertEquals(Optional.of(OrderStatus.PENDING), orderService.getOrderStatus(orderId));
+        verify(productServiceClient, never()).updateProductQuantity(any());
+
+        // user-service recovers; the retry is due at once as the tests run without backoff
+        when(userServiceClient.getUserDetail(36L)).thenReturn(ResponseEntity.ok(new UserServiceResponse(36L, "dave", "200")));
+        orderProcessingWorker.sweepStalePending();
+        orderProcessingWorker.processBatch();
+
+        assertEquals(Optional.of(OrderStatus.COMPLETED), orderService.getOrderStatus(orderId));
+        assertEquals(2, orderRepository.findById(orderId).orElseThrow().getProcessingAttempts());
+    }
+
+    @Test
+    void ordersOfABatchAreProcessedConcurrentlyWithoutATransaction() {
+        CountDownLatch bothInFlight = new CountDownLatch(2);
+        when(userServiceClient.getUserDetail(anyLong())).thenAnswer(invocation -> {
+            // Claimed orders are not locked while downstream services are called
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            bothInFlight.countDown();
+            assertTrue(bothInFlight.await(5, TimeUnit.SECONDS), "orders of a batch were processed one by one");
+            return ResponseEntity.ok(new UserServiceResponse(37L, "erin", "200"));
+        });
+        long first = orderService.acceptOrder(orderRequest(37L, 1)).getBody().getOrderId();
+        long second = orderService.acceptOrder(orderRequest(37L, 1)).getBody().getOrderId();
+
+        orderProcessingWorker.processBatch();
+
+        assertEquals(Optional.of(OrderStatus.COMPLETED), orderService.getOrderStatus(first));
+        assertEquals(Optional.of(OrderStatus.COMPLETED), orderService.getOrderStatus(second));
+    }
+
+    @Test
+    void longPollForAnOrderDeletedBeforeProcessingIsAnsweredWithNotFound() throws Exception {
+        long orderId = orderService.acceptOrder(orderRequest(38L, 1)).getBody().getOrderId();
+        MvcResult poll = mockMvc.perform(get("/api/order/{orderId}/status", orderId).param("waitMs", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        orderService.deleteOrder(orderId);
+        orderProcessingWorker.processBatch();
+
+        mockMvc.perform(asyncDispatch(poll))
+                .andExpect(status().isNotFound());
+    }
+}
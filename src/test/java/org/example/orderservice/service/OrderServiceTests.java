@@ -0,0 +1,45 @@
+package org.example.orderservice.service;
+
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderDetails;
+import org.example.orderservice.dao.OrderResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.example.orderservice.OrderFixtures.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class OrderServiceTests extends OrderServiceTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void createOrderPersistsOrderWithItems() {
+        ResponseEntity<OrderResponse> response = orderService.createOrder(orderRequest(1L, 2));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Long orderId = response.getBody().getOrderId();
+        assertNotNull(orderId);
+        OrderDetails details = orderService.getOrderById(orderId).getBody();
+        assertEquals("PENDING", details.getStatus());
+        assertEquals(0, BigDecimal.TEN.compareTo(details.getTotalAmount()));
+        assertEquals(1, details.getOrderDetails().size());
+    }
+
+    @Test
+    void includeArchivedIsIgnoredWhenArchivingIsDisabled() {
+        orderService.createOrder(orderRequest(2L, 1));
+
+        ResponseEntity<List<OrderDetails>> response = orderService.getOrderByUserId(2L, true);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.orderservice.service;
+
+import org.example.orderservice.OrderServiceTestSupport;
+import org.example.orderservice.dao.OrderStatus;
+import org.example.orderservice.dao.OrderSummaryDetails;
+import org.example.orderservice.repository.OrderSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.example.orderservice.OrderFixtures.order;
+import static org.example.orderservice.OrderFixtures.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderSummaryServiceTests extends OrderServiceTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Test
+    void summaryFollowsOrderWrites() {
+        long first = orderService.createOrder(orderRequest(51L, 2)).getBody().getOrderId();
+        long second = orderService.createOrder(orderRequest(51L, 1)).getBody().getOrderId();
+
+        assertSummary(51L, 2, "15", 2, 0, 0);
+
+        orderService.updateOrderStatus(first, "COMPLETED");
+        assertSummary(51L, 2, "15", 1, 1, 0);
+
+        orderService.updateOrderStatus(second, "CANCELED");
+        assertSummary(51L, 2, "10", 0, 1, 1);
+
+        orderService.deleteOrder(second);
+        assertSummary(51L, 1, "10", 0, 1, 0);
+    }
+
+    @Test
+    void usersWithoutSummaryAreCoveredByTheRebuild() {
+        // Orders written before the projection existed
+        saveOrder(order(52L, OrderStatus.COMPLETED, BigDecimal.TEN));
+        saveOrder(order(52L, OrderStatus.FAILED, BigDecimal.ONE));
+
+        assertEquals(HttpStatus.NOT_FOUND, orderSummaryService.getSummary(52L).getStatusCode());
+
+        orderSummaryService.rebuildSummaries();
+
+        assertSummary(52L, 2, "10", 0, 1, 0);
+        assertEquals(1L, orderSummaryService.getSummary(52L).getBody().getStatusCounts().get("FAILED"));
+    }
+
+    @Test
+    void emptySummaryTableIsBackfilledOnStartup() {
+        saveOrder(order(55L, OrderStatus.COMPLETED, BigDecimal.TEN));
+        // As on the first start after the projection was introduced
+        orderSummaryRepository.deleteAll();
+
+        orderSummaryService.backfillSummaries();
+
+        assertSummary(55L, 1, "10", 0, 1, 0);
+    }
+
+    @Test
+    void firstWriteInitialisesTheSummaryFromExistingOrders() {
+        saveOrder(order(53L, OrderStatus.COMPLETED, BigDecimal.TEN));
+
+        orderService.createOrder(orderRequest(53L, 1));
+
+        assertSummary(53L, 2, "15", 1, 1, 0);
+    }
+
+    @Test
+    void concurrentFirstOrdersOfAUserAllSucceed() throws Exception {
+        int orders = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(orders);
+        try {
+            List<Future<HttpStatusCode>> results = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return orderService.createOrder(orderRequest(54L, 1)).getStatusCode();
+                }));
+            }
+            start.countDown();
+            for (Future<HttpStatusCode> result : results) {
+                assertEquals(HttpStatus.OK, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertSummary(54L, orders, "20", orders, 0, 0);
+    }
+
+    private void assertSummary(long userId, long orderCount, String totalSpend, long pending, long completed, long canceled) {
+        ResponseEntity<OrderSummaryDetails> response = orderSummaryService.getSummary(userId);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        OrderSummaryDetails summary = response.getBody();
+        assertEquals(orderCount, summary.getOrderCount());
+        assertEquals(0, new BigDecimal(totalSpend).compareTo(summary.getTotalSpend()), "total spend " + summary.getTotalSpend());
+        assertEquals(pending, summary.getStatusCounts().get("PENDING"));
+        assertEquals(completed, summary.getStatusCounts().get("COMPLETED"));
+        assertEquals(canceled, summary.getStatusCounts().get("CANCELED"));
+    }
+}